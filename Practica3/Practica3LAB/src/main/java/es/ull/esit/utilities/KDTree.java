@@ -0,0 +1,221 @@
+package es.ull.esit.utilities;
+
+/**
+ * Clase que implementa un árbol k-d de dos dimensiones sobre un conjunto fijo de puntos, para buscar
+ * los k vecinos más cercanos de un punto en tiempo logarítmico en lugar de recorrer todos los puntos.
+ * El árbol se guarda de forma implícita en un array de índices: el nodo de cada rango es su punto medio,
+ * que divide el rango por la coordenada X en los niveles pares y por la Y en los impares.
+ */
+public class KDTree {
+    /**
+     * Coordenadas X de los puntos.
+     */
+    private final double[] x;
+
+    /**
+     * Coordenadas Y de los puntos.
+     */
+    private final double[] y;
+
+    /**
+     * Índices de los puntos en el orden del árbol.
+     */
+    private final int[] tree;
+
+    /**
+     * Constructor de la clase KDTree. Construye el árbol en O(n log n).
+     *
+     * @param x Coordenadas X de los puntos.
+     * @param y Coordenadas Y de los puntos.
+     * @param size Número de puntos (se usan los índices de 0 a size - 1).
+     */
+    public KDTree(double[] x, double[] y, int size) {
+        this.x = x;
+        this.y = y;
+        this.tree = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.tree[i] = i;
+        }
+        this.build(0, size, 0);
+    }
+
+    /**
+     * Método que construye recursivamente el subárbol de un rango colocando su mediana en el punto medio.
+     *
+     * @param lo Inicio del rango (incluido).
+     * @param hi Fin del rango (excluido).
+     * @param depth Profundidad del rango en el árbol.
+     */
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        this.select(lo, hi - 1, mid, (depth & 1) == 0 ? this.x : this.y);
+        this.build(lo, mid, depth + 1);
+        this.build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Método que coloca en la posición k del rango el punto que le corresponde en orden por una coordenada,
+     * con los menores a su izquierda y los mayores a su derecha (quickselect).
+     *
+     * @param lo Inicio del rango (incluido).
+     * @param hi Fin del rango (incluido).
+     * @param k Posición a colocar.
+     * @param coordinate Coordenada por la que se ordena.
+     */
+    private void select(int lo, int hi, int k, double[] coordinate) {
+        while (lo < hi) {
+            double pivot = coordinate[this.tree[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinate[this.tree[i]] < pivot) {
+                    i++;
+                }
+                while (coordinate[this.tree[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = this.tree[i];
+                    this.tree[i] = this.tree[j];
+                    this.tree[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Método que busca los k puntos más cercanos a un punto dado.
+     *
+     * @param qx Coordenada X del punto de consulta.
+     * @param qy Coordenada Y del punto de consulta.
+     * @param k Número de vecinos buscados.
+     * @param exclude Índice de un punto que no se devuelve (por ejemplo, el propio punto), o -1.
+     * @param result Array en el que se guardan los vecinos, de más cercano a más lejano.
+     * @return Número de vecinos encontrados (como mucho k).
+     */
+    public int nearest(double qx, double qy, int k, int exclude, int[] result) {
+        if (k <= 0) {
+            return 0;
+        }
+        // montículo de máximos con los k mejores puntos encontrados
+        int[] heapIndex = new int[k];
+        double[] heapDistance = new double[k];
+        int count = this.search(0, this.tree.length, 0, qx, qy, k, exclude, heapIndex, heapDistance, 0);
+        for (int last = count - 1; last >= 0; last--) {
+            result[last] = heapIndex[0];
+            heapIndex[0] = heapIndex[last];
+            heapDistance[0] = heapDistance[last];
+            this.siftDown(heapIndex, heapDistance, last);
+        }
+        return count;
+    }
+
+    /**
+     * Método que busca recursivamente en el subárbol de un rango, descartando los subárboles que están
+     * más lejos que el peor de los k vecinos encontrados.
+     *
+     * @param lo Inicio del rango (incluido).
+     * @param hi Fin del rango (excluido).
+     * @param depth Profundidad del rango en el árbol.
+     * @param qx Coordenada X del punto de consulta.
+     * @param qy Coordenada Y del punto de consulta.
+     * @param k Número de vecinos buscados.
+     * @param exclude Índice de un punto que no se devuelve, o -1.
+     * @param heapIndex Índices de los puntos del montículo.
+     * @param heapDistance Distancias al cuadrado de los puntos del montículo.
+     * @param count Número de puntos en el montículo.
+     * @return Número de puntos en el montículo.
+     */
+    private int search(int lo, int hi, int depth, double qx, double qy, int k, int exclude, int[] heapIndex, double[] heapDistance, int count) {
+        if (lo >= hi) {
+            return count;
+        }
+        int mid = (lo + hi) >>> 1;
+        int point = this.tree[mid];
+        if (point != exclude) {
+            double dx = this.x[point] - qx;
+            double dy = this.y[point] - qy;
+            double distance = dx * dx + dy * dy;
+            if (count < k) {
+                // inserción en el montículo (sift up)
+                int child = count++;
+                while (child > 0) {
+                    int parent = (child - 1) >>> 1;
+                    if (heapDistance[parent] >= distance) {
+                        break;
+                    }
+                    heapIndex[child] = heapIndex[parent];
+                    heapDistance[child] = heapDistance[parent];
+                    child = parent;
+                }
+                heapIndex[child] = point;
+                heapDistance[child] = distance;
+            } else if (distance < heapDistance[0]) {
+                heapIndex[0] = point;
+                heapDistance[0] = distance;
+                this.siftDown(heapIndex, heapDistance, count);
+            }
+        }
+        double diff = (depth & 1) == 0 ? qx - this.x[point] : qy - this.y[point];
+        int nearLo = diff < 0 ? lo : mid + 1;
+        int nearHi = diff < 0 ? mid : hi;
+        int farLo = diff < 0 ? mid + 1 : lo;
+        int farHi = diff < 0 ? hi : mid;
+        count = this.search(nearLo, nearHi, depth + 1, qx, qy, k, exclude, heapIndex, heapDistance, count);
+        if (count < k || diff * diff < heapDistance[0]) {
+            count = this.search(farLo, farHi, depth + 1, qx, qy, k, exclude, heapIndex, heapDistance, count);
+        }
+        return count;
+    }
+
+    /**
+     * Método que restaura la propiedad de montículo de máximos desde la raíz.
+     *
+     * @param heapIndex Índices de los puntos del montículo.
+     * @param heapDistance Distancias al cuadrado de los puntos del montículo.
+     * @param size Número de elementos del montículo.
+     */
+    private void siftDown(int[] heapIndex, double[] heapDistance, int size) {
+        int parent = 0;
+        int index = heapIndex[0];
+        double distance = heapDistance[0];
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heapDistance[child + 1] > heapDistance[child]) {
+                child++;
+            }
+            if (heapDistance[child] <= distance) {
+                break;
+            }
+            heapIndex[parent] = heapIndex[child];
+            heapDistance[parent] = heapDistance[child];
+            parent = child;
+        }
+        heapIndex[parent] = index;
+        heapDistance[parent] = distance;
+    }
+
+    /**
+     * Método que devuelve el número de puntos del árbol.
+     *
+     * @return Número de puntos.
+     */
+    public int size() {
+        return this.tree.length;
+    }
+}
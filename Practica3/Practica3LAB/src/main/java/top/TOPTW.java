@@ -2,13 +2,32 @@ package top;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import es.ull.esit.utilities.ExpositoUtilities;
+import es.ull.esit.utilities.KDTree;
 
 /**
  * Clase que implementa el problema de recogida y entrega con ventanas temporales.
  */
 public class TOPTW {
+    /**
+     * Número de vecinos más cercanos por nodo que se calculan al leer una instancia.
+     */
+    public static final int DEFAULT_NEIGHBORS = 20;
+
+    /**
+     * Número de nodos a partir del cual la matriz de distancias se calcula en paralelo.
+     */
+    public static final int PARALLEL_DISTANCE_THRESHOLD = 1024;
+
+    /**
+     * Número de filas de la matriz de distancias que se escriben juntas, para que la parte simétrica
+     * ocupe posiciones contiguas.
+     */
+    private static final int DISTANCE_ROWS_PER_BLOCK = 16;
+
     private int nodes;
     private double[] x;
     private double[] y;
@@ -20,15 +39,33 @@ public class TOPTW {
     private int depots;
     private double maxTimePerRoute;
     private double maxRoutes;
-    private double[][] distanceMatrix;
+    private TOPTWDistanceMatrix distances;
+    private int[] matrixIndex;
+    private double maxScore;
+    private double[] scoreMembership;
+    private boolean scoreStatisticsUpdated;
+    private int[][] neighbors;
+    private long[] compatibleArcs;
+    private boolean[] reachable;
 
     /**
-     * Constructor de la clase TOPTW.
+     * Constructor de la clase TOPTW con la matriz de distancias completa en doble precisión.
      *
      * @param nodes Número de nodos.
      * @param routes Número de rutas.
      */
     public TOPTW(int nodes, int routes) {
+        this(nodes, routes, TOPTWDistanceMatrix.Storage.DOUBLE);
+    }
+
+    /**
+     * Constructor de la clase TOPTW.
+     *
+     * @param nodes Número de nodos.
+     * @param routes Número de rutas.
+     * @param storage Tipo de almacenamiento de la matriz de distancias.
+     */
+    public TOPTW(int nodes, int routes, TOPTWDistanceMatrix.Storage storage) {
         this.nodes = nodes;
         this.depots = 0;
         this.x = new double[this.nodes + 1];
@@ -37,14 +74,16 @@ public class TOPTW {
         this.readyTime = new double[this.nodes + 1];
         this.dueTime = new double[this.nodes + 1];
         this.serviceTime = new double[this.nodes + 1];
-        this.distanceMatrix = new double[this.nodes + 1][this.nodes + 1];
-        for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                this.distanceMatrix[i][j] = 0.0;
-            }
+        this.distances = TOPTWDistanceMatrix.create(this.nodes + 1, storage, this.x, this.y);
+        // las copias del depósito de cada ruta (índices mayores que nodes) se traducen una sola vez al nodo 0
+        this.matrixIndex = new int[this.nodes + Math.max(routes, 1)];
+        for (int i = 0; i < this.matrixIndex.length; i++) {
+            this.matrixIndex[i] = i <= this.nodes ? i : 0;
         }
         this.maxRoutes = routes;
         this.vehicles = routes;
+        this.scoreMembership = new double[this.nodes + 1];
+        this.scoreStatisticsUpdated = false;
     }
 
     /**
@@ -106,21 +145,185 @@ public class TOPTW {
     }
 
     /**
-     * Método que calcula la matriz de distancias entre los nodos.
+     * Método que calcula la matriz de distancias entre los nodos, en paralelo a partir de
+     * PARALLEL_DISTANCE_THRESHOLD nodos. Si las distancias se calculan al consultarlas (modo ON_DEMAND)
+     * no hace nada.
      */
     public void calculateDistanceMatrix() {
-        for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                if (i != j) {
-                    double diffXs = this.x[i] - this.x[j];
-                    double diffYs = this.y[i] - this.y[j];
-                    this.distanceMatrix[i][j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
-                    this.distanceMatrix[j][i] = this.distanceMatrix[i][j];
-                } else {
-                    this.distanceMatrix[i][j] = 0.0;
+        this.calculateDistanceMatrix(this.nodes + 1 >= PARALLEL_DISTANCE_THRESHOLD);
+    }
+
+    /**
+     * Método que calcula la matriz de distancias entre los nodos. Solo se calcula el triángulo superior,
+     * fila a fila con {@link TOPTWDistanceMatrix#euclideanRow}, y cada bloque de filas se escribe en ambos
+     * sentidos con {@link TOPTWDistanceMatrix#setRows}.
+     * En paralelo, las filas se reparten entre las tareas de ForkJoinPool.commonPool(); el resultado es
+     * idéntico al secuencial.
+     *
+     * @param parallel true para repartir las filas entre varios hilos, false para calcularlas en el hilo actual.
+     */
+    public void calculateDistanceMatrix(boolean parallel) {
+        if (!this.distances.isPrecomputed()) {
+            return;
+        }
+        int size = this.nodes + 1;
+        if (parallel) {
+            // unas ocho tareas por hilo para que el robo de tareas equilibre las filas largas y las cortas
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            int grain = Math.max(DISTANCE_ROWS_PER_BLOCK, size / (8 * pool.getParallelism()));
+            pool.invoke(new DistanceRowsTask(this.x, this.y, this.distances, 0, size, grain));
+        } else {
+            new DistanceRowsTask(this.x, this.y, this.distances, 0, size, size).computeRows();
+        }
+    }
+
+    /**
+     * Método que calcula qué arcos son compatibles con las ventanas temporales y qué POIs son alcanzables.
+     * El arco (i, j) es compatible si, saliendo de i lo antes posible (ready time más tiempo de servicio, o el
+     * instante 0 para el depósito), se llega a j antes de su due time; el arco del depósito consigo mismo es
+     * el de una ruta vacía y también es compatible. Un POI es alcanzable si una ruta
+     * depósito-POI-depósito cumple las ventanas temporales y el tiempo máximo por ruta.
+     * Debe llamarse después de fijar el tiempo máximo por ruta. Los arcos y POIs descartados nunca forman
+     * parte de una solución factible, por lo que las evaluaciones pueden saltarlos con una única comprobación.
+     * Sin matriz de distancias (modo ON_DEMAND) no se guarda la tabla de arcos, que ocuparía n^2 bits, y
+     * todos los arcos se consideran compatibles; como la tabla solo descarta arcos infactibles, el algoritmo
+     * obtiene las mismas soluciones con y sin ella. Los POIs alcanzables sí se calculan.
+     */
+    public void calculateCompatibility() {
+        int size = this.nodes + 1;
+        this.compatibleArcs = null;
+        if (this.distances.isPrecomputed()) {
+            this.compatibleArcs = new long[(int) (((long) size * size + 63) >>> 6)];
+            for (int i = 0; i < size; i++) {
+                double departure = (i == 0) ? 0.0 : this.readyTime[i] + this.serviceTime[i];
+                for (int j = 0; j < size; j++) {
+                    // el arco (0, 0) une las dos copias del depósito de una ruta que se queda vacía
+                    if ((i != j || i == 0) && departure + this.distances.get(i, j) < this.dueTime[j]) {
+                        long bit = (long) i * size + j;
+                        this.compatibleArcs[(int) (bit >>> 6)] |= 1L << bit;
+                    }
                 }
             }
         }
+        this.reachable = new boolean[size];
+        for (int i = 1; i < size; i++) {
+            double arrival = this.distances.get(0, i);
+            double departure = Math.max(arrival, this.readyTime[i]) + this.serviceTime[i];
+            double back = departure + this.distances.get(i, 0);
+            this.reachable[i] = arrival < this.dueTime[i] && departure <= this.maxTimePerRoute && back < this.dueTime[0]
+                    && Math.max(back, this.readyTime[0]) + this.serviceTime[0] <= this.maxTimePerRoute;
+        }
+    }
+
+    /**
+     * Método que indica si el arco entre dos nodos es compatible con las ventanas temporales.
+     * Si no se ha calculado la compatibilidad, todos los arcos son compatibles.
+     *
+     * @param i Nodo origen.
+     * @param j Nodo destino.
+     * @return false si ninguna ruta factible puede recorrer el arco, true en caso contrario.
+     */
+    public boolean isCompatible(int i, int j) {
+        if (this.compatibleArcs == null) {
+            return true;
+        }
+        if(this.isDepot(i)) { i=0; }
+        if(this.isDepot(j)) { j=0; }
+        long bit = (long) i * (this.nodes + 1) + j;
+        return (this.compatibleArcs[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Método que indica si un POI puede visitarse en alguna ruta factible.
+     * Si no se ha calculado la compatibilidad, todos los POIs son alcanzables.
+     *
+     * @param index POI.
+     * @return false si ninguna ruta factible puede visitar el POI, true en caso contrario.
+     */
+    public boolean isReachable(int index) {
+        return this.reachable == null || this.reachable[index];
+    }
+
+    /**
+     * Método que calcula, para cada nodo, la lista de sus k nodos más cercanos (sin incluirse a sí mismo),
+     * de más cercano a más lejano, con un árbol k-d sobre las coordenadas. Las evaluaciones granulares solo
+     * consideran posiciones de inserción junto a estos vecinos.
+     *
+     * @param k Número de vecinos por nodo.
+     */
+    public void calculateNeighborLists(int k) {
+        int size = this.nodes + 1;
+        int count = Math.min(k, size - 1);
+        KDTree tree = new KDTree(this.x, this.y, size);
+        int[] buffer = new int[count];
+        this.neighbors = new int[size][];
+        for (int i = 0; i < size; i++) {
+            int found = tree.nearest(this.x[i], this.y[i], count, i, buffer);
+            this.neighbors[i] = Arrays.copyOf(buffer, found);
+        }
+    }
+
+    /**
+     * Método que devuelve los vecinos más cercanos de un nodo, de más cercano a más lejano.
+     *
+     * @param index Nodo.
+     * @return Vecinos del nodo (el depósito se representa como 0).
+     */
+    public int[] getNeighbors(int index) {
+        if(this.isDepot(index)) { index=0; }
+        return this.neighbors[index];
+    }
+
+    /**
+     * Método que indica si se han calculado las listas de vecinos.
+     *
+     * @return true si hay listas de vecinos, false en caso contrario.
+     */
+    public boolean hasNeighborLists() {
+        return this.neighbors != null;
+    }
+
+    /**
+     * Método que calcula las estadísticas de score de la instancia: el score máximo y el grado de pertenencia
+     * (1 - score / score máximo) de cada nodo, usados por las selecciones fuzzy del GRASP.
+     */
+    public void calculateScoreStatistics() {
+        this.maxScore = -1.0;
+        for (int i = 0; i < this.score.length; i++) {
+            if (this.score[i] > this.maxScore) {
+                this.maxScore = this.score[i];
+            }
+        }
+        for (int i = 0; i < this.score.length; i++) {
+            this.scoreMembership[i] = 1 - (this.score[i] / this.maxScore);
+        }
+        this.scoreStatisticsUpdated = true;
+    }
+
+    /**
+     * Método que devuelve el score máximo de la instancia.
+     *
+     * @return Score máximo.
+     */
+    public double getMaxScore() {
+        if (!this.scoreStatisticsUpdated) {
+            this.calculateScoreStatistics();
+        }
+        return this.maxScore;
+    }
+
+    /**
+     * Método que devuelve el grado de pertenencia de un nodo (1 - score / score máximo).
+     *
+     * @param index Nodo.
+     * @return Grado de pertenencia del nodo.
+     */
+    public double getScoreMembership(int index) {
+        if (!this.scoreStatisticsUpdated) {
+            this.calculateScoreStatistics();
+        }
+        if(this.isDepot(index)) { index=0; }
+        return this.scoreMembership[index];
     }
 
     /**
@@ -167,13 +370,12 @@ public class TOPTW {
     }
 
     /**
-     * Método que devuelve la matriz de distancias entre los nodos.
+     * Método que devuelve la distancia entre dos nodos. Los depósitos se traducen al nodo 0 con una tabla,
+     * sin comparaciones.
      * @return Distancias entre los nodos.
      */
     public double getDistance(int i, int j) {
-        if(this.isDepot(i)) { i=0; }
-        if(this.isDepot(j)) { j=0; }
-        return this.distanceMatrix[i][j];
+        return this.distances.get(this.matrixIndex[i], this.matrixIndex[j]);
     }
 
     /**
@@ -182,9 +384,16 @@ public class TOPTW {
      * @return Tiempo entre los nodos.
      */
     public double getTime(int i, int j) {
-        if(this.isDepot(i)) { i=0; }
-        if(this.isDepot(j)) { j=0; }
-        return this.distanceMatrix[i][j];
+        return this.distances.get(this.matrixIndex[i], this.matrixIndex[j]);
+    }
+
+    /**
+     * Método que devuelve la matriz de distancias entre los nodos.
+     *
+     * @return Matriz de distancias.
+     */
+    public TOPTWDistanceMatrix getDistanceMatrix() {
+        return this.distances;
     }
 
 
@@ -266,6 +475,7 @@ public class TOPTW {
      */
     public void setScore(int index, double score) {
         this.score[index] = score;
+        this.scoreStatisticsUpdated = false;
     }
 
     /**
@@ -385,4 +595,52 @@ public class TOPTW {
         this.depots++;
         return this.depots;
     }
+
+    /**
+     * Tarea que calcula un rango de filas del triángulo superior de la matriz de distancias, dividiéndose
+     * por la mitad hasta grain filas, que se escriben en bloques de DISTANCE_ROWS_PER_BLOCK filas. Las
+     * primeras filas son más largas, pero el robo de tareas del ForkJoinPool reparte la carga entre los hilos.
+     */
+    private static final class DistanceRowsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[] x;
+        private final double[] y;
+        private final TOPTWDistanceMatrix distances;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        DistanceRowsTask(double[] x, double[] y, TOPTWDistanceMatrix distances, int from, int to, int grain) {
+            this.x = x;
+            this.y = y;
+            this.distances = distances;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.grain) {
+                this.computeRows();
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new DistanceRowsTask(this.x, this.y, this.distances, this.from, middle, this.grain),
+                        new DistanceRowsTask(this.x, this.y, this.distances, middle, this.to, this.grain));
+            }
+        }
+
+        void computeRows() {
+            int size = this.distances.getSize();
+            double[][] rows = new double[Math.min(this.to - this.from, DISTANCE_ROWS_PER_BLOCK)][size];
+            for (int block = this.from; block < this.to; block += rows.length) {
+                int count = Math.min(rows.length, this.to - block);
+                double[][] blockRows = count == rows.length ? rows : Arrays.copyOf(rows, count);
+                for (int k = 0; k < count; k++) {
+                    TOPTWDistanceMatrix.euclideanRow(this.x, this.y, block + k, block + k + 1, size, blockRows[k]);
+                }
+                this.distances.setRows(block, blockRows);
+            }
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package top;
+
+/**
+ * Clase que implementa una lista de candidatos reutilizable para la construcción voraz del problema TOPTW.
+ * Cada candidato se guarda en vectores paralelos (cliente, ruta, predecesor, coste y score), de modo que
+ * la lista se reserva una sola vez y se reutiliza en todos los pasos e iteraciones sin crear objetos.
+ */
+public class TOPTWCandidateList {
+    private int[] customer;
+    private int[] route;
+    private int[] predecessor;
+    private double[] cost;
+    private double[] score;
+    private int[] order;
+    private int size;
+
+    /**
+     * Constructor de la clase TOPTWCandidateList.
+     *
+     * @param capacity Número máximo de candidatos.
+     */
+    public TOPTWCandidateList(int capacity) {
+        this.customer = new int[capacity];
+        this.route = new int[capacity];
+        this.predecessor = new int[capacity];
+        this.cost = new double[capacity];
+        this.score = new double[capacity];
+        this.order = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Método que vacía la lista sin liberar memoria.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Método que añade un candidato a la lista.
+     *
+     * @param customer Cliente a insertar.
+     * @param route Ruta en la que se inserta.
+     * @param predecessor Predecesor del cliente en la ruta.
+     * @param cost Coste de la inserción.
+     * @param score Score del cliente.
+     */
+    public void add(int customer, int route, int predecessor, double cost, double score) {
+        this.customer[this.size] = customer;
+        this.route[this.size] = route;
+        this.predecessor[this.size] = predecessor;
+        this.cost[this.size] = cost;
+        this.score[this.size] = score;
+        this.order[this.size] = this.size;
+        this.size++;
+    }
+
+    /**
+     * Método que selecciona los k candidatos de menor coste y los deja ordenados al principio de la lista.
+     * A igualdad de coste se mantiene el orden de inserción. Se utiliza un montículo acotado de tamaño k
+     * sobre el vector de índices, con coste O(n log k) y sin reservar memoria.
+     *
+     * @param k Número de candidatos a seleccionar.
+     * @return Número de candidatos seleccionados (como máximo el tamaño de la lista).
+     */
+    public int selectBest(int k) {
+        if(k > this.size) {
+            k = this.size;
+        }
+        if(k <= 0) {
+            return 0;
+        }
+        // montículo de máximos con los k mejores candidatos vistos hasta el momento
+        for(int i = 0; i < k; i++) {
+            this.order[i] = i;
+        }
+        for(int i = k / 2 - 1; i >= 0; i--) {
+            this.siftDown(i, k);
+        }
+        for(int i = k; i < this.size; i++) {
+            if(this.isBefore(i, this.order[0])) {
+                this.order[0] = i;
+                this.siftDown(0, k);
+            }
+        }
+        // ordenar los k seleccionados
+        for(int end = k - 1; end > 0; end--) {
+            int tmp = this.order[0];
+            this.order[0] = this.order[end];
+            this.order[end] = tmp;
+            this.siftDown(0, end);
+        }
+        return k;
+    }
+
+    /**
+     * Método que ordena todos los candidatos por coste creciente. A igualdad de coste se mantiene el orden de inserción.
+     */
+    public void sortByCost() {
+        this.selectBest(this.size);
+    }
+
+    /**
+     * Método que hunde un elemento del montículo de máximos usado por la selección.
+     *
+     * @param i Posición del elemento.
+     * @param heapSize Tamaño del montículo.
+     */
+    private void siftDown(int i, int heapSize) {
+        int element = this.order[i];
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= heapSize) {
+                break;
+            }
+            if(child + 1 < heapSize && this.isBefore(this.order[child], this.order[child + 1])) {
+                child++;
+            }
+            if(!this.isBefore(element, this.order[child])) {
+                break;
+            }
+            this.order[i] = this.order[child];
+            i = child;
+        }
+        this.order[i] = element;
+    }
+
+    /**
+     * Método que compara dos candidatos por coste y, a igualdad, por orden de inserción.
+     *
+     * @param a Índice del primer candidato.
+     * @param b Índice del segundo candidato.
+     * @return true si el candidato a va antes que el b.
+     */
+    private boolean isBefore(int a, int b) {
+        if(this.cost[a] != this.cost[b]) {
+            return this.cost[a] < this.cost[b];
+        }
+        return a < b;
+    }
+
+    /**
+     * Método que devuelve el número de candidatos.
+     *
+     * @return Número de candidatos.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Método que indica si la lista está vacía.
+     *
+     * @return true si no hay candidatos, false en caso contrario.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Método que devuelve la capacidad de la lista.
+     *
+     * @return Número máximo de candidatos.
+     */
+    public int getCapacity() {
+        return this.customer.length;
+    }
+
+    /**
+     * Método que devuelve el cliente del candidato en una posición de la lista ordenada.
+     *
+     * @param rank Posición en la lista ordenada.
+     * @return Cliente del candidato.
+     */
+    public int getCustomer(int rank) {
+        return this.customer[this.order[rank]];
+    }
+
+    /**
+     * Método que devuelve la ruta del candidato en una posición de la lista ordenada.
+     *
+     * @param rank Posición en la lista ordenada.
+     * @return Ruta del candidato.
+     */
+    public int getRoute(int rank) {
+        return this.route[this.order[rank]];
+    }
+
+    /**
+     * Método que devuelve el predecesor del candidato en una posición de la lista ordenada.
+     *
+     * @param rank Posición en la lista ordenada.
+     * @return Predecesor del candidato.
+     */
+    public int getPredecessor(int rank) {
+        return this.predecessor[this.order[rank]];
+    }
+
+    /**
+     * Método que devuelve el coste del candidato en una posición de la lista ordenada.
+     *
+     * @param rank Posición en la lista ordenada.
+     * @return Coste de inserción del candidato.
+     */
+    public double getCost(int rank) {
+        return this.cost[this.order[rank]];
+    }
+
+    /**
+     * Método que devuelve el score del candidato en una posición de la lista ordenada.
+     *
+     * @param rank Posición en la lista ordenada.
+     * @return Score del candidato.
+     */
+    public double getScore(int rank) {
+        return this.score[this.order[rank]];
+    }
+}
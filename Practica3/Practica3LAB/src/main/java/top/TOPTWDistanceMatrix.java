@@ -0,0 +1,549 @@
+package top;
+
+import java.util.Arrays;
+
+/**
+ * Clase que almacena las distancias entre los nodos de una instancia (el depósito es el nodo 0) en un
+ * único array plano, sin un objeto por fila. Según el tipo de almacenamiento los valores se guardan en
+ * doble o en simple precisión, y la matriz completa por filas o solo el triángulo superior con la diagonal,
+ * aprovechando que la distancia euclídea es simétrica:
+ * <pre>
+ *   DOUBLE              8 n^2 bytes
+ *   FLOAT               4 n^2 bytes
+ *   DOUBLE_TRIANGULAR   4 n^2 bytes
+ *   FLOAT_TRIANGULAR    2 n^2 bytes
+ * </pre>
+ * La simple precisión redondea las distancias a unos 7 dígitos significativos, lo que puede cambiar alguna
+ * decisión de factibilidad en el límite de una ventana temporal.
+ * Para instancias muy grandes, ON_DEMAND no guarda la matriz: calcula cada distancia euclídea a partir de
+ * las coordenadas, con los mismos valores que DOUBLE, y guarda en una caché LRU acotada las filas de los
+ * nodos más consultados.
+ */
+public abstract class TOPTWDistanceMatrix {
+
+    /**
+     * Tipos de almacenamiento de la matriz de distancias.
+     */
+    public enum Storage {
+        /** Matriz completa en doble precisión. */
+        DOUBLE,
+        /** Matriz completa en simple precisión. */
+        FLOAT,
+        /** Triángulo superior en doble precisión. */
+        DOUBLE_TRIANGULAR,
+        /** Triángulo superior en simple precisión. */
+        FLOAT_TRIANGULAR,
+        /** Sin matriz: cálculo a partir de las coordenadas con caché LRU de filas por hilo. */
+        ON_DEMAND
+    }
+
+    /**
+     * Número de filas que guarda por defecto la caché de cada hilo en el modo ON_DEMAND.
+     */
+    public static final int DEFAULT_CACHED_ROWS = 64;
+
+    /**
+     * Número de consultas que no encuentran la fila de un nodo en la caché antes de calcularla y guardarla.
+     */
+    public static final int DEFAULT_PROMOTE_AFTER = 16;
+
+    protected final int size;
+
+    /**
+     * Constructor de la clase TOPTWDistanceMatrix.
+     *
+     * @param size Número de nodos (POIs más el depósito).
+     */
+    protected TOPTWDistanceMatrix(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Método que crea una matriz de distancias, inicialmente a cero salvo en el modo ON_DEMAND.
+     *
+     * @param size Número de nodos (POIs más el depósito).
+     * @param storage Tipo de almacenamiento.
+     * @param x Coordenadas X de los nodos (el modo ON_DEMAND lee el array al consultar cada distancia).
+     * @param y Coordenadas Y de los nodos.
+     * @return Matriz de distancias.
+     */
+    public static TOPTWDistanceMatrix create(int size, Storage storage, double[] x, double[] y) {
+        switch (storage) {
+            case FLOAT:             return new FloatMatrix(size);
+            case DOUBLE_TRIANGULAR: return new DoubleTriangularMatrix(size);
+            case FLOAT_TRIANGULAR:  return new FloatTriangularMatrix(size);
+            case ON_DEMAND:         return new OnDemandMatrix(size, x, y, DEFAULT_CACHED_ROWS, DEFAULT_PROMOTE_AFTER);
+            default:                return new DoubleMatrix(size);
+        }
+    }
+
+    /**
+     * Método que crea una matriz de distancias sin almacenamiento, calculada a partir de las coordenadas.
+     *
+     * @param size Número de nodos (POIs más el depósito).
+     * @param x Coordenadas X de los nodos.
+     * @param y Coordenadas Y de los nodos.
+     * @param cachedRows Número máximo de filas en la caché de cada hilo.
+     * @param promoteAfter Consultas fallidas de un nodo antes de guardar su fila.
+     * @return Matriz de distancias.
+     */
+    public static TOPTWDistanceMatrix onDemand(int size, double[] x, double[] y, int cachedRows, int promoteAfter) {
+        return new OnDemandMatrix(size, x, y, cachedRows, promoteAfter);
+    }
+
+    /**
+     * Método que calcula la distancia euclídea entre dos puntos, con las mismas operaciones en los dos
+     * sentidos para que el resultado sea simétrico.
+     *
+     * @param x Coordenadas X.
+     * @param y Coordenadas Y.
+     * @param i Primer nodo.
+     * @param j Segundo nodo.
+     * @return Distancia entre los nodos.
+     */
+    public static double euclidean(double[] x, double[] y, int i, int j) {
+        double diffXs = x[i] - x[j];
+        double diffYs = y[i] - y[j];
+        return Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+    }
+
+    /**
+     * Método que calcula las distancias euclídeas de un nodo a los nodos de un rango, con las mismas
+     * operaciones que {@link #euclidean(double[], double[], int, int)}. El bucle recorre arrays contiguos
+     * sin dependencias entre iteraciones, de modo que el compilador JIT lo vectoriza (resta, cuadrado y
+     * raíz cuadrada en registros SIMD).
+     *
+     * @param x Coordenadas X.
+     * @param y Coordenadas Y.
+     * @param i Nodo origen.
+     * @param from Primer nodo destino (incluido).
+     * @param to Último nodo destino (excluido).
+     * @param row Array donde se guarda la distancia a cada nodo j en la posición j.
+     */
+    public static void euclideanRow(double[] x, double[] y, int i, int from, int to, double[] row) {
+        double xi = x[i];
+        double yi = y[i];
+        for(int j = from; j < to; j++) {
+            double diffXs = xi - x[j];
+            double diffYs = yi - y[j];
+            row[j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+        }
+    }
+
+    /**
+     * Método que devuelve la distancia entre dos nodos.
+     *
+     * @param i Nodo origen (0 para el depósito).
+     * @param j Nodo destino (0 para el depósito).
+     * @return Distancia entre los nodos.
+     */
+    public abstract double get(int i, int j);
+
+    /**
+     * Método que establece la distancia entre dos nodos en ambos sentidos.
+     *
+     * @param i Primer nodo.
+     * @param j Segundo nodo.
+     * @param distance Distancia entre los nodos.
+     */
+    public abstract void set(int i, int j, double distance);
+
+    /**
+     * Método que establece, en ambos sentidos, las distancias de un bloque de filas consecutivas del
+     * triángulo superior: las de cada nodo i del bloque a los nodos j mayores que i. Bloques distintos
+     * escriben posiciones distintas, por lo que varios hilos pueden rellenar bloques diferentes a la vez.
+     *
+     * @param from Primer nodo del bloque.
+     * @param rows Distancias de cada nodo from + k en rows[k], a cada nodo j en la posición j.
+     */
+    public void setRows(int from, double[][] rows) {
+        for(int k = 0; k < rows.length; k++) {
+            for(int j = from + k + 1; j < this.size; j++) {
+                this.set(from + k, j, rows[k][j]);
+            }
+        }
+    }
+
+    /**
+     * Método que devuelve el número de nodos.
+     *
+     * @return Número de nodos.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Método que indica si las distancias se guardan y deben calcularse con
+     * {@link TOPTW#calculateDistanceMatrix()}.
+     *
+     * @return true si hay que calcular la matriz, false si las distancias se calculan al consultarlas.
+     */
+    public boolean isPrecomputed() {
+        return true;
+    }
+
+    /**
+     * Método que libera las estructuras auxiliares que la matriz guarda para el hilo actual, como la caché
+     * de filas del modo ON_DEMAND. Debe llamarse al terminar de usar la matriz desde un hilo de un pool que
+     * sigue vivo; la matriz sigue siendo utilizable y, si se vuelve a consultar, las crea de nuevo.
+     */
+    public void releaseCache() {
+        // sin estructuras por hilo
+    }
+
+    /**
+     * Método que devuelve la memoria que ocupan las distancias guardadas. No incluye las cachés por hilo
+     * del modo ON_DEMAND.
+     *
+     * @return Número de bytes del array de distancias.
+     */
+    public abstract long getMemoryBytes();
+
+    /**
+     * Método que calcula la longitud del array de una matriz y comprueba que cabe en un array de Java.
+     *
+     * @param length Número de elementos.
+     * @return Número de elementos como entero.
+     */
+    protected static int checkedLength(long length) {
+        if(length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("La matriz de distancias tiene demasiados elementos: " + length);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Método que calcula el desplazamiento de cada fila del triángulo superior con la diagonal.
+     *
+     * @param size Número de nodos.
+     * @return Posición en el array del elemento (i, i) de cada fila i.
+     */
+    protected static int[] rowOffsets(int size) {
+        checkedLength((long) size * (size + 1) / 2);
+        int[] offset = new int[size];
+        int position = 0;
+        for(int i = 0; i < size; i++) {
+            offset[i] = position;
+            position += size - i;
+        }
+        return offset;
+    }
+
+    /**
+     * Matriz completa en doble precisión.
+     */
+    private static final class DoubleMatrix extends TOPTWDistanceMatrix {
+        private final double[] distances;
+
+        DoubleMatrix(int size) {
+            super(size);
+            this.distances = new double[checkedLength((long) size * size)];
+        }
+
+        @Override
+        public double get(int i, int j) {
+            return this.distances[i * this.size + j];
+        }
+
+        @Override
+        public void set(int i, int j, double distance) {
+            this.distances[i * this.size + j] = distance;
+            this.distances[j * this.size + i] = distance;
+        }
+
+        @Override
+        public void setRows(int from, double[][] rows) {
+            // las filas se copian enteras y la parte simétrica se escribe columna a columna del bloque, de
+            // modo que cada fila j recibe los valores del bloque en posiciones contiguas
+            for(int k = 0; k < rows.length; k++) {
+                int i = from + k;
+                System.arraycopy(rows[k], i + 1, this.distances, i * this.size + i + 1, this.size - i - 1);
+            }
+            for(int j = from + 1; j < this.size; j++) {
+                int base = j * this.size + from;
+                int count = Math.min(j - from, rows.length);
+                for(int k = 0; k < count; k++) {
+                    this.distances[base + k] = rows[k][j];
+                }
+            }
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 8L * this.distances.length;
+        }
+    }
+
+    /**
+     * Matriz completa en simple precisión.
+     */
+    private static final class FloatMatrix extends TOPTWDistanceMatrix {
+        private final float[] distances;
+
+        FloatMatrix(int size) {
+            super(size);
+            this.distances = new float[checkedLength((long) size * size)];
+        }
+
+        @Override
+        public double get(int i, int j) {
+            return this.distances[i * this.size + j];
+        }
+
+        @Override
+        public void set(int i, int j, double distance) {
+            this.distances[i * this.size + j] = (float) distance;
+            this.distances[j * this.size + i] = (float) distance;
+        }
+
+        @Override
+        public void setRows(int from, double[][] rows) {
+            for(int k = 0; k < rows.length; k++) {
+                int i = from + k;
+                int base = i * this.size;
+                for(int j = i + 1; j < this.size; j++) {
+                    this.distances[base + j] = (float) rows[k][j];
+                }
+            }
+            for(int j = from + 1; j < this.size; j++) {
+                int base = j * this.size + from;
+                int count = Math.min(j - from, rows.length);
+                for(int k = 0; k < count; k++) {
+                    this.distances[base + k] = (float) rows[k][j];
+                }
+            }
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 4L * this.distances.length;
+        }
+    }
+
+    /**
+     * Triángulo superior con la diagonal en doble precisión.
+     */
+    private static final class DoubleTriangularMatrix extends TOPTWDistanceMatrix {
+        private final int[] offset;
+        private final double[] distances;
+
+        DoubleTriangularMatrix(int size) {
+            super(size);
+            this.offset = rowOffsets(size);
+            this.distances = new double[(int) ((long) size * (size + 1) / 2)];
+        }
+
+        @Override
+        public double get(int i, int j) {
+            return i <= j ? this.distances[this.offset[i] + j - i] : this.distances[this.offset[j] + i - j];
+        }
+
+        @Override
+        public void set(int i, int j, double distance) {
+            if(i <= j) {
+                this.distances[this.offset[i] + j - i] = distance;
+            } else {
+                this.distances[this.offset[j] + i - j] = distance;
+            }
+        }
+
+        @Override
+        public void setRows(int from, double[][] rows) {
+            for(int k = 0; k < rows.length; k++) {
+                int i = from + k;
+                System.arraycopy(rows[k], i + 1, this.distances, this.offset[i] + 1, this.size - i - 1);
+            }
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 8L * this.distances.length + 4L * this.offset.length;
+        }
+    }
+
+    /**
+     * Triángulo superior con la diagonal en simple precisión.
+     */
+    private static final class FloatTriangularMatrix extends TOPTWDistanceMatrix {
+        private final int[] offset;
+        private final float[] distances;
+
+        FloatTriangularMatrix(int size) {
+            super(size);
+            this.offset = rowOffsets(size);
+            this.distances = new float[(int) ((long) size * (size + 1) / 2)];
+        }
+
+        @Override
+        public double get(int i, int j) {
+            return i <= j ? this.distances[this.offset[i] + j - i] : this.distances[this.offset[j] + i - j];
+        }
+
+        @Override
+        public void set(int i, int j, double distance) {
+            if(i <= j) {
+                this.distances[this.offset[i] + j - i] = (float) distance;
+            } else {
+                this.distances[this.offset[j] + i - j] = (float) distance;
+            }
+        }
+
+        @Override
+        public void setRows(int from, double[][] rows) {
+            for(int k = 0; k < rows.length; k++) {
+                int i = from + k;
+                int base = this.offset[i] - i;
+                for(int j = i + 1; j < this.size; j++) {
+                    this.distances[base + j] = (float) rows[k][j];
+                }
+            }
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 4L * this.distances.length + 4L * this.offset.length;
+        }
+    }
+
+    /**
+     * Matriz sin almacenamiento: cada distancia se calcula a partir de las coordenadas. Cada hilo tiene su
+     * propia caché LRU de como mucho cachedRows filas completas; la fila de un nodo se calcula y se guarda
+     * cuando sus consultas fallan promoteAfter veces, expulsando la usada hace más tiempo. La memoria extra
+     * está acotada por hilos x cachedRows x size x 8 bytes, independientemente del número de pares, y no se
+     * cuenta en getMemoryBytes(), que devuelve 0. Las cachés no guardan ninguna referencia a la matriz, de modo
+     * que cuando ésta deja de usarse las de los hilos que siguen vivos pueden recogerse; para liberarlas en el
+     * momento, cada hilo puede llamar a releaseCache().
+     */
+    private static final class OnDemandMatrix extends TOPTWDistanceMatrix {
+        private final ThreadLocal<RowCache> caches;
+
+        OnDemandMatrix(int size, double[] x, double[] y, int cachedRows, int promoteAfter) {
+            super(size);
+            this.caches = ThreadLocal.withInitial(() -> new RowCache(size, x, y, cachedRows, promoteAfter));
+        }
+
+        @Override
+        public double get(int i, int j) {
+            return this.caches.get().get(i, j);
+        }
+
+        @Override
+        public void set(int i, int j, double distance) {
+            // las distancias se calculan a partir de las coordenadas
+        }
+
+        @Override
+        public boolean isPrecomputed() {
+            return false;
+        }
+
+        @Override
+        public void releaseCache() {
+            this.caches.remove();
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 0L;
+        }
+    }
+
+    /**
+     * Caché LRU de filas de un hilo. La lista de recencia es doblemente enlazada sobre los huecos, de modo
+     * que consultar, insertar y expulsar una fila cuestan tiempo constante.
+     */
+    private static final class RowCache {
+        private final double[] x;
+        private final double[] y;
+        private final int promoteAfter;
+        private final int[] slotOf;
+        private final int[] misses;
+        private final int[] nodeOf;
+        private final double[][] rows;
+        private final int[] previous;
+        private final int[] next;
+        private int head;
+        private int tail;
+        private int used;
+
+        RowCache(int size, double[] x, double[] y, int cachedRows, int promoteAfter) {
+            this.x = x;
+            this.y = y;
+            this.promoteAfter = promoteAfter;
+            this.slotOf = new int[size];
+            Arrays.fill(this.slotOf, -1);
+            this.misses = new int[size];
+            this.nodeOf = new int[cachedRows];
+            this.rows = new double[cachedRows][];
+            this.previous = new int[cachedRows];
+            this.next = new int[cachedRows];
+            this.head = -1;
+            this.tail = -1;
+            this.used = 0;
+        }
+
+        double get(int i, int j) {
+            int slot = this.slotOf[i];
+            if(slot >= 0) {
+                this.touch(slot);
+                return this.rows[slot][j];
+            }
+            slot = this.slotOf[j];
+            if(slot >= 0) {
+                this.touch(slot);
+                return this.rows[slot][i];
+            }
+            if(++this.misses[i] >= this.promoteAfter && this.rows.length > 0) {
+                this.misses[i] = 0;
+                return this.load(i)[j];
+            }
+            return euclidean(this.x, this.y, i, j);
+        }
+
+        /**
+         * Método que calcula la fila de un nodo y la guarda, expulsando la menos usada si la caché está llena.
+         */
+        private double[] load(int node) {
+            int slot;
+            if(this.used < this.rows.length) {
+                slot = this.used++;
+                this.rows[slot] = new double[this.slotOf.length];
+            } else {
+                slot = this.tail;
+                this.unlink(slot);
+                this.slotOf[this.nodeOf[slot]] = -1;
+            }
+            double[] row = this.rows[slot];
+            for(int j = 0; j < row.length; j++) {
+                row[j] = euclidean(this.x, this.y, node, j);
+            }
+            this.nodeOf[slot] = node;
+            this.slotOf[node] = slot;
+            this.linkFirst(slot);
+            return row;
+        }
+
+        private void touch(int slot) {
+            if(slot != this.head) {
+                this.unlink(slot);
+                this.linkFirst(slot);
+            }
+        }
+
+        private void unlink(int slot) {
+            int p = this.previous[slot];
+            int n = this.next[slot];
+            if(p >= 0) { this.next[p] = n; } else { this.head = n; }
+            if(n >= 0) { this.previous[n] = p; } else { this.tail = p; }
+        }
+
+        private void linkFirst(int slot) {
+            this.previous[slot] = -1;
+            this.next[slot] = this.head;
+            if(this.head >= 0) { this.previous[this.head] = slot; }
+            this.head = slot;
+            if(this.tail < 0) { this.tail = slot; }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package top;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase que implementa el conjunto élite del GRASP: como mucho capacity soluciones de alto fitness y
+ * diversas entre sí. Una solución entra si mejora a la mejor del conjunto, o si está a una distancia de al
+ * menos minDistance arcos de todas las demás y el conjunto no está lleno o ella supera a la peor. Con el
+ * conjunto lleno sustituye a la más parecida de las que no la superan.
+ * Los métodos están sincronizados, de modo que varios hilos GRASP pueden insertar a la vez en el mismo
+ * conjunto; la copia compacta de la solución se hace fuera del bloqueo.
+ */
+public class TOPTWElitePool {
+    private final int capacity;
+    private final int minDistance;
+    private final List<TOPTWEliteSolution> solutions;
+
+    /**
+     * Constructor de la clase TOPTWElitePool.
+     *
+     * @param capacity Número máximo de soluciones.
+     * @param minDistance Número mínimo de arcos distintos respecto a las soluciones del conjunto.
+     */
+    public TOPTWElitePool(int capacity, int minDistance) {
+        this.capacity = capacity;
+        this.minDistance = minDistance;
+        this.solutions = new ArrayList<TOPTWEliteSolution>(capacity);
+    }
+
+    /**
+     * Método que ofrece una solución al conjunto. Solo se copia si su fitness le permite entrar.
+     *
+     * @param solution Solución.
+     * @param fitness Fitness de la solución.
+     * @return true si la solución ha entrado en el conjunto, false en caso contrario.
+     */
+    public boolean offer(TOPTWSolution solution, double fitness) {
+        if(!this.isCandidate(fitness)) {
+            return false;
+        }
+        return this.add(new TOPTWEliteSolution(solution, fitness));
+    }
+
+    /**
+     * Método que indica si una solución con un fitness dado podría entrar en el conjunto.
+     *
+     * @param fitness Fitness de la solución.
+     * @return true si el conjunto no está lleno o el fitness supera al peor, false en caso contrario.
+     */
+    public synchronized boolean isCandidate(double fitness) {
+        return this.solutions.size() < this.capacity || fitness > this.getWorst().getFitness();
+    }
+
+    /**
+     * Método que intenta añadir una solución élite al conjunto.
+     *
+     * @param candidate Solución élite.
+     * @return true si la solución ha entrado en el conjunto, false en caso contrario.
+     */
+    public synchronized boolean add(TOPTWEliteSolution candidate) {
+        boolean best = this.solutions.isEmpty() || candidate.getFitness() > this.getBest().getFitness();
+        TOPTWEliteSolution closest = null;
+        int closestDistance = Integer.MAX_VALUE;
+        for(TOPTWEliteSolution elite : this.solutions) {
+            if(elite.getArcHash() == candidate.getArcHash()) {
+                return false;
+            }
+            int distance = elite.distance(candidate);
+            if(distance == 0 || (distance < this.minDistance && !best)) {
+                return false;
+            }
+            // candidata a ser sustituida: la más parecida de las que no superan a la nueva
+            if(elite.getFitness() <= candidate.getFitness() && distance < closestDistance) {
+                closestDistance = distance;
+                closest = elite;
+            }
+        }
+        if(this.solutions.size() < this.capacity) {
+            this.solutions.add(candidate);
+            return true;
+        }
+        if(closest == null || (candidate.getFitness() <= this.getWorst().getFitness() && !best)) {
+            return false;
+        }
+        this.solutions.set(this.solutions.indexOf(closest), candidate);
+        return true;
+    }
+
+    /**
+     * Método que devuelve una copia de las soluciones del conjunto.
+     *
+     * @return Soluciones élite.
+     */
+    public synchronized List<TOPTWEliteSolution> getSolutions() {
+        return new ArrayList<TOPTWEliteSolution>(this.solutions);
+    }
+
+    /**
+     * Método que devuelve la mejor solución del conjunto.
+     *
+     * @return Mejor solución, o null si el conjunto está vacío.
+     */
+    public synchronized TOPTWEliteSolution getBest() {
+        TOPTWEliteSolution best = null;
+        for(TOPTWEliteSolution elite : this.solutions) {
+            if(best == null || elite.getFitness() > best.getFitness()) {
+                best = elite;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Método que devuelve la peor solución del conjunto.
+     *
+     * @return Peor solución, o null si el conjunto está vacío.
+     */
+    private TOPTWEliteSolution getWorst() {
+        TOPTWEliteSolution worst = null;
+        for(TOPTWEliteSolution elite : this.solutions) {
+            if(worst == null || elite.getFitness() < worst.getFitness()) {
+                worst = elite;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Método que vacía el conjunto.
+     */
+    public synchronized void clear() {
+        this.solutions.clear();
+    }
+
+    /**
+     * Método que devuelve el número de soluciones del conjunto.
+     *
+     * @return Número de soluciones.
+     */
+    public synchronized int size() {
+        return this.solutions.size();
+    }
+
+    /**
+     * Método que devuelve el número máximo de soluciones.
+     *
+     * @return Capacidad del conjunto.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Método que devuelve la distancia mínima exigida entre soluciones.
+     *
+     * @return Distancia mínima en arcos.
+     */
+    public int getMinDistance() {
+        return this.minDistance;
+    }
+}
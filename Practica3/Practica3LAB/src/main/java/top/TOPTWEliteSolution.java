@@ -0,0 +1,144 @@
+package top;
+
+import java.util.Arrays;
+
+/**
+ * Clase que guarda de forma compacta e inmutable una solución del conjunto élite: la secuencia de clientes
+ * de cada ruta y el conjunto ordenado de sus arcos, codificados como enteros de 64 bits (origen, destino)
+ * con todos los depósitos representados por el nodo 0. La distancia entre dos soluciones es el número de
+ * arcos que no comparten, y se calcula mezclando los dos conjuntos ordenados.
+ */
+public class TOPTWEliteSolution {
+    private final int[] nodes;
+    private final int[] routeStart;
+    private final long[] arcs;
+    private final long arcHash;
+    private final double fitness;
+
+    /**
+     * Constructor de la clase TOPTWEliteSolution.
+     *
+     * @param solution Solución a guardar.
+     * @param fitness Fitness de la solución.
+     */
+    public TOPTWEliteSolution(TOPTWSolution solution, double fitness) {
+        int routes = solution.getCreatedRoutes();
+        int size = 0;
+        for(int k = 0; k < routes; k++) {
+            size += solution.getRouteSize(k);
+        }
+        this.nodes = new int[size];
+        this.routeStart = new int[routes + 1];
+        this.arcs = new long[size + routes];
+        int n = 0;
+        int a = 0;
+        for(int k = 0; k < routes; k++) {
+            this.routeStart[k] = n;
+            int depot = solution.getIndexRoute(k);
+            int pre = 0;
+            for(int node = solution.getSuccessor(depot); node != depot; node = solution.getSuccessor(node)) {
+                this.nodes[n++] = node;
+                this.arcs[a++] = TOPTWEliteSolution.arc(pre, node);
+                pre = node;
+            }
+            this.arcs[a++] = TOPTWEliteSolution.arc(pre, 0);
+        }
+        this.routeStart[routes] = n;
+        Arrays.sort(this.arcs);
+        this.arcHash = solution.getArcHash();
+        this.fitness = fitness;
+    }
+
+    /**
+     * Método que codifica un arco como entero de 64 bits.
+     *
+     * @param from Nodo origen.
+     * @param to Nodo destino.
+     * @return Arco codificado.
+     */
+    private static long arc(int from, int to) {
+        return ((long) from) << 32 | to;
+    }
+
+    /**
+     * Método que devuelve el número de arcos que están en una de las dos soluciones y no en la otra.
+     *
+     * @param other Otra solución élite.
+     * @return Distancia entre las soluciones.
+     */
+    public int distance(TOPTWEliteSolution other) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while(i < this.arcs.length && j < other.arcs.length) {
+            if(this.arcs[i] < other.arcs[j]) {
+                i++;
+            } else if(this.arcs[i] > other.arcs[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return this.arcs.length + other.arcs.length - 2 * common;
+    }
+
+    /**
+     * Método que escribe esta solución en una solución de trabajo, creando las mismas rutas.
+     *
+     * @param solution Solución de trabajo (se reinicia).
+     */
+    public void copyTo(TOPTWSolution solution) {
+        solution.initSolution();
+        int routes = this.routeStart.length - 1;
+        for(int k = 1; k < routes; k++) {
+            solution.addRoute();
+        }
+        for(int k = 0; k < routes; k++) {
+            int size = this.routeStart[k + 1] - this.routeStart[k];
+            solution.setRoute(k, Arrays.copyOfRange(this.nodes, this.routeStart[k], this.routeStart[k + 1]), size);
+        }
+    }
+
+    /**
+     * Método que indica qué POIs visita la solución.
+     *
+     * @param pois Número de POIs del problema.
+     * @return Array indexado por POI, true si la solución lo visita.
+     */
+    public boolean[] getVisited(int pois) {
+        boolean[] visited = new boolean[pois + 1];
+        for(int node : this.nodes) {
+            visited[node] = true;
+        }
+        return visited;
+    }
+
+    /**
+     * Método que devuelve el número de POIs visitados.
+     *
+     * @return Número de POIs visitados.
+     */
+    public int getVisitedCount() {
+        return this.nodes.length;
+    }
+
+    /**
+     * Método que devuelve el hash de arcos de la solución original.
+     *
+     * @return Hash de arcos.
+     */
+    public long getArcHash() {
+        return this.arcHash;
+    }
+
+    /**
+     * Método que devuelve el fitness de la solución.
+     *
+     * @return Fitness.
+     */
+    public double getFitness() {
+        return this.fitness;
+    }
+}
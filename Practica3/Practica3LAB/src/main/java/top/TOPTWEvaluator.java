@@ -2,6 +2,10 @@ package top;
 
 /**
  * Clase que implementa un evaluador de soluciones al problema TOPTW.
+ * La evaluación simula de nuevo todas las rutas a partir de los sucesores, sin usar los tiempos guardados
+ * en la solución, por lo que sirve para comprobar los valores que la solución mantiene de forma incremental.
+ * Guarda el tiempo total y la factibilidad de la última solución evaluada, así que cada hilo debe usar su
+ * propio evaluador.
  */
 public class TOPTWEvaluator {
     /**
@@ -9,37 +13,69 @@ public class TOPTWEvaluator {
      */
     public static double NO_EVALUATED = -1.0;
 
+    private double totalTime;
+    private boolean feasible;
+
+    /**
+     * Constructor de la clase TOPTWEvaluator.
+     */
+    public TOPTWEvaluator() {
+        this.totalTime = TOPTWEvaluator.NO_EVALUATED;
+        this.feasible = false;
+    }
+
     /**
-     * Método que evalúa una solución al problema TOPTW.
+     * Método que evalúa una solución al problema TOPTW en una sola pasada O(n): calcula el score, la suma
+     * de los tiempos de finalización de las rutas y si se cumplen las ventanas temporales y el tiempo
+     * máximo, y guarda el score en el valor de la función objetivo de la solución.
      *
      * @param solution Solución a evaluar.
+     * @return Score de la solución.
      */
-    public void evaluate(TOPTWSolution solution) {
-        /*CumulativeCVRP problem = solution.getProblem();
+    public double evaluate(TOPTWSolution solution) {
+        TOPTW problem = solution.getProblem();
         double objectiveFunctionValue = 0.0;
-        for (int i = 0; i < solution.getIndexDepot().size(); i++) {
-            double cumulative = 0;
-            int depot = solution.getAnIndexDepot(i);
-            int actual = depot;
-            actual = solution.getSuccessor(actual);
-            cumulative += problem.getDistanceMatrix(0, actual);
-            objectiveFunctionValue += problem.getDistanceMatrix(0, actual);
-            System.out.println("Desde " + 0 + " a " + actual + " = " + cumulative);
-            while (actual != depot) {
-                int ant = actual;
-                actual = solution.getSuccessor(actual);
-                if (actual != depot) {
-                    cumulative += problem.getDistanceMatrix(ant, actual);
-                    objectiveFunctionValue += cumulative;
-                    System.out.println("Desde " + ant + " a " + actual + " = " + cumulative);
-                } else {
-                    cumulative += problem.getDistanceMatrix(ant, 0);
-                    objectiveFunctionValue += cumulative;
-                    System.out.println("Desde " + ant + " a " + 0 + " = " + cumulative);
+        this.totalTime = 0.0;
+        this.feasible = true;
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            double time = 0.0;
+            int pre = depot, suc = -1;
+            do {
+                suc = solution.getSuccessor(pre);
+                time += problem.getDistance(pre, suc);
+                // la llegada debe ser estrictamente anterior al due time
+                if(time >= problem.getDueTime(suc)) {
+                    this.feasible = false;
                 }
+                time = Math.max(time, problem.getReadyTime(suc)) + problem.getServiceTime(suc);
+                objectiveFunctionValue += problem.getScore(suc);
+                pre = suc;
+            } while(suc != depot);
+            if(time > problem.getMaxTimePerRoute()) {
+                this.feasible = false;
             }
-            System.out.println("");
+            this.totalTime += time;
         }
-        solution.setObjectiveFunctionValue(objectiveFunctionValue);*/
+        solution.setObjectiveFunctionValue(objectiveFunctionValue);
+        return objectiveFunctionValue;
+    }
+
+    /**
+     * Método que devuelve la suma de los tiempos de finalización de las rutas de la última solución evaluada.
+     *
+     * @return Tiempo total, o NO_EVALUATED si no se ha evaluado ninguna solución.
+     */
+    public double getTotalTime() {
+        return this.totalTime;
+    }
+
+    /**
+     * Método que indica si la última solución evaluada es factible.
+     *
+     * @return true si es factible, false en caso contrario.
+     */
+    public boolean isFeasible() {
+        return this.feasible;
     }
 }
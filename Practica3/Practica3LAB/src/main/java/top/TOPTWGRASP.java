@@ -1,9 +1,13 @@
 package top;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.security.SecureRandom;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
 
 /**
  * Clase que implementa el algoritmo GRASP para resolver el problema TOPTW.
@@ -14,6 +18,21 @@ public class TOPTWGRASP {
      */
     public static double NO_EVALUATED = -1.0;
 
+    /**
+     * Selección aleatoria de la lista restringida de candidatos.
+     */
+    public static final int RANDOM_SELECTION = 1;
+
+    /**
+     * Selección fuzzy del candidato con mejor valor de pertenencia.
+     */
+    public static final int FUZZY_BEST_SELECTION = 2;
+
+    /**
+     * Selección fuzzy aleatoria entre los candidatos del corte alfa.
+     */
+    public static final int FUZZY_ALPHA_CUT_SELECTION = 3;
+
     /**
      * Solución al problema TOPTW.
      */
@@ -24,14 +43,124 @@ public class TOPTWGRASP {
      */
     private int solutionTime;
 
+    /**
+     * Indica si la construcción reevalúa únicamente la ruta modificada tras cada inserción.
+     */
+    private boolean incrementalEvaluation;
+
+    /**
+     * Indica si la construcción solo evalúa las posiciones de inserción junto a los vecinos más cercanos.
+     */
+    private boolean granularEvaluation;
+
+    /**
+     * Mejor coste de inserción de cada cliente en cada ruta (ruta, cliente).
+     */
+    private double[][] bestInsertionCost;
+
+    /**
+     * Predecesor de la mejor posición de inserción de cada cliente en cada ruta (ruta, cliente).
+     */
+    private int[][] bestInsertionPredecessor;
+
+    /**
+     * Lista de candidatos reutilizada en todos los pasos de la construcción.
+     */
+    private TOPTWCandidateList candidates;
+
+    /**
+     * Clientes pendientes de la construcción, reutilizados en todas las iteraciones.
+     */
+    private int[] customers;
+
+    /**
+     * Soluciones de trabajo de esta instancia (se crean al usarlas por primera vez).
+     */
+    private TOPTWSolutionPool solutionPool;
+
+    /**
+     * Generador de números aleatorios usado en la selección de la lista restringida de candidatos.
+     */
+    private RandomGenerator.SplittableGenerator random;
+
+    /**
+     * Salida de resultados de las ejecuciones.
+     */
+    private TOPTWReporter reporter;
+
+    /**
+     * Indica si se aplica la búsqueda local a cada solución construida.
+     */
+    private boolean localSearch;
+
+    /**
+     * Búsqueda local de esta instancia (se crea al usarla por primera vez).
+     */
+    private TOPTWLocalSearch localSearchEngine;
+
+    /**
+     * Indica si se descartan las construcciones repetidas en lugar de volver a aplicarles la búsqueda local.
+     */
+    private boolean skipDuplicates;
+
+    /**
+     * Conjunto élite de la ejecución, compartido con los hilos del GRASP paralelo (null si no se usa).
+     */
+    private TOPTWElitePool elitePool;
+
+    /**
+     * Estrategia de selección de la lista restringida de candidatos en las ejecuciones no reactivas.
+     */
+    private int selection;
+
+    /**
+     * Valor de corte alfa de la selección fuzzy en las ejecuciones no reactivas.
+     */
+    private double alpha;
+
+    /**
+     * Criterios de parada adicionales al número de iteraciones, compartidos con los hilos (null si no se usan).
+     */
+    private TOPTWStoppingCriteria stoppingCriteria;
+
     /**
      * Constructor de la clase TOPTWGRASP.
      *
      * @param sol Solución al problema TOPTW.
      */
     public TOPTWGRASP(TOPTWSolution sol){
+        this(sol, new SplittableRandom());
+    }
+
+    /**
+     * Constructor de la clase TOPTWGRASP con una semilla explícita, para poder reproducir una ejecución.
+     *
+     * @param sol Solución al problema TOPTW.
+     * @param seed Semilla del generador de números aleatorios.
+     */
+    public TOPTWGRASP(TOPTWSolution sol, long seed){
+        this(sol, new SplittableRandom(seed));
+    }
+
+    /**
+     * Constructor de la clase TOPTWGRASP con un generador de números aleatorios.
+     *
+     * @param sol Solución al problema TOPTW.
+     * @param random Generador de números aleatorios.
+     */
+    public TOPTWGRASP(TOPTWSolution sol, RandomGenerator.SplittableGenerator random){
         this.solution = sol;
         this.solutionTime = 0;
+        this.incrementalEvaluation = true;
+        this.granularEvaluation = false;
+        this.random = random;
+        this.reporter = new TOPTWReporter(TOPTWReporter.Level.FULL_TRACE, System.out);
+        this.localSearch = true;
+        this.skipDuplicates = true;
+        this.elitePool = null;
+        this.selection = TOPTWGRASP.FUZZY_ALPHA_CUT_SELECTION;
+        this.alpha = 0.8;
+        this.stoppingCriteria = null;
     }
     
     /*procedure GRASP(Max Iterations,Seed)
@@ -58,37 +187,342 @@ public class TOPTWGRASP {
 
     /**
      * Método que implementa el algoritmo GRASP para resolver el problema TOPTW.
+     * Si hay conjunto élite, al terminar las iteraciones se aplica el path relinking entre sus soluciones.
      *
      * @param maxIterations Número máximo de iteraciones.
      * @param maxSizeRCL Tamaño máximo de la lista restringida de candidatos.
+     * @return Resultado de la ejecución, con una copia de la mejor solución.
      */
-    public void GRASP(int maxIterations, int maxSizeRCL) {
-        double averageFitness = 0.0;
-        double bestSolution = 0.0;
+    public TOPTWGRASPResult GRASP(int maxIterations, int maxSizeRCL) {
+        long start = this.startRun();
+        TOPTWGRASPResult result = this.runIterations(maxIterations, maxSizeRCL, null, this.reporter);
+        this.finishRun(result, ForkJoinPool.commonPool(), start);
+        return result;
+    }
+
+    /**
+     * Método que implementa el GRASP reactivo con las configuraciones por defecto
+     * ({@link TOPTWReactiveParameters#defaults()}).
+     *
+     * @param maxIterations Número máximo de iteraciones.
+     * @return Resultado de la ejecución.
+     */
+    public TOPTWGRASPResult reactiveGRASP(int maxIterations) {
+        return this.reactiveGRASP(maxIterations, TOPTWReactiveParameters.defaults());
+    }
+
+    /**
+     * Método que implementa el GRASP reactivo: en cada iteración el tamaño de la lista restringida, la
+     * estrategia de selección y el valor de corte alfa se sortean entre las configuraciones de parameters,
+     * cuyas probabilidades se adaptan a la calidad de las soluciones que obtiene cada una. Así una sola
+     * ejecución sustituye a varias ejecuciones con parámetros fijos.
+     *
+     * @param maxIterations Número máximo de iteraciones.
+     * @param parameters Configuraciones y estado del aprendizaje (se reinicia al empezar).
+     * @return Resultado de la ejecución.
+     */
+    public TOPTWGRASPResult reactiveGRASP(int maxIterations, TOPTWReactiveParameters parameters) {
+        long start = this.startRun();
+        parameters.reset();
+        TOPTWGRASPResult result = this.runIterations(maxIterations, 0, parameters, this.reporter);
+        this.finishRun(result, ForkJoinPool.commonPool(), start);
+        return result;
+    }
+
+    /**
+     * Método que implementa el algoritmo GRASP repartiendo las iteraciones entre varios hilos.
+     * Cada hilo trabaja con su propia solución y sus propias estructuras de construcción, y los
+     * resultados parciales se combinan al final sin compartir estado durante la búsqueda.
+     *
+     * @param maxIterations Número máximo de iteraciones.
+     * @param maxSizeRCL Tamaño máximo de la lista restringida de candidatos.
+     * @param threads Número de hilos.
+     * @return Resultado combinado de todos los hilos.
+     * @throws IllegalArgumentException Si el número de hilos no es positivo.
+     */
+    public TOPTWGRASPResult parallelGRASP(int maxIterations, int maxSizeRCL, int threads) {
+        if(threads <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo: " + threads);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return this.parallelGRASP(maxIterations, maxSizeRCL, threads, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Método que implementa el algoritmo GRASP repartiendo las iteraciones entre tareas de un pool de hilos.
+     *
+     * @param maxIterations Número máximo de iteraciones.
+     * @param maxSizeRCL Tamaño máximo de la lista restringida de candidatos.
+     * @param tasks Número de tareas en las que se dividen las iteraciones.
+     * @param executor Pool de hilos en el que se ejecutan las tareas.
+     * @return Resultado combinado de todas las tareas.
+     * @throws IllegalArgumentException Si el número de tareas no es positivo.
+     */
+    public TOPTWGRASPResult parallelGRASP(int maxIterations, int maxSizeRCL, int tasks, ExecutorService executor) {
+        if(tasks <= 0) {
+            throw new IllegalArgumentException("El número de tareas debe ser positivo: " + tasks);
+        }
+        long start = this.startRun();
+        List<Future<TOPTWGRASPResult>> futures = new ArrayList<Future<TOPTWGRASPResult>>();
+        for(int t = 0; t < tasks; t++) {
+            // reparto equitativo de las iteraciones entre las tareas
+            int iterations = maxIterations / tasks + (t < maxIterations % tasks ? 1 : 0);
+            TOPTWGRASP worker = this.createWorker();
+            futures.add(executor.submit(() -> {
+                try {
+                    return worker.runIterations(iterations, maxSizeRCL, null, TOPTWReporter.silent());
+                } finally {
+                    // el hilo del pool sigue vivo: se liberan sus estructuras en la matriz de distancias
+                    worker.solution.getProblem().getDistanceMatrix().releaseCache();
+                }
+            }));
+        }
+        TOPTWGRASPResult result = new TOPTWGRASPResult();
+        try {
+            for(Future<TOPTWGRASPResult> future : futures) {
+                result = result.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        this.finishRun(result, executor, start);
+        return result;
+    }
+
+    /**
+     * Método que prepara una ejecución: vacía el conjunto élite y pone en marcha los criterios de parada.
+     *
+     * @return Instante de inicio en nanosegundos.
+     */
+    private long startRun() {
+        if(this.elitePool != null) {
+            this.elitePool.clear();
+        }
+        if(this.stoppingCriteria != null) {
+            this.stoppingCriteria.start();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Método que termina una ejecución: aplica el path relinking si no se ha cancelado ni agotado el tiempo,
+     * guarda en el resultado la mejor solución del conjunto élite si supera a la de las iteraciones,
+     * establece el tiempo de solución e informa del resumen.
+     *
+     * @param result Resultado de las iteraciones.
+     * @param executor Pool de hilos del path relinking.
+     * @param start Instante de inicio en nanosegundos.
+     */
+    private void finishRun(TOPTWGRASPResult result, ExecutorService executor, long start) {
+        if(this.elitePool != null) {
+            double relinked = 0.0;
+            if(this.stoppingCriteria == null || !this.stoppingCriteria.isCancelled()) {
+                relinked = this.pathRelinking(executor);
+            }
+            TOPTWEliteSolution best = this.elitePool.getBest();
+            if(best != null && best.getFitness() > result.getBestFitness()) {
+                TOPTWSolution bestSolution = this.getSolutionPool().getCandidate();
+                best.copyTo(bestSolution);
+                result.updateBest(best.getFitness());
+                result.setBestSolution(bestSolution.snapshot());
+            }
+            result.updateBest(relinked);
+        }
+        this.solutionTime = (int) ((System.nanoTime() - start) / 1000000L);
+        if(this.stoppingCriteria != null) {
+            this.stoppingCriteria.finish(result.getBestFitness());
+        }
+        this.reporter.reportSummary(result);
+    }
+
+    /**
+     * Método que aplica el path relinking entre todos los pares ordenados de soluciones del conjunto élite.
+     * Cada solución inicial se relinka con todas las guías en una tarea del pool de hilos, con su propia
+     * búsqueda local, y las soluciones obtenidas se ofrecen al conjunto élite. Las tareas dejan de relinkar
+     * si la ejecución se cancela o se agota el tiempo.
+     *
+     * @param executor Pool de hilos en el que se ejecutan las tareas.
+     * @return Mejor fitness obtenido por el path relinking o presente en el conjunto élite.
+     */
+    public double pathRelinking(ExecutorService executor) {
+        List<TOPTWEliteSolution> elite = this.elitePool.getSolutions();
+        List<Future<Double>> futures = new ArrayList<Future<Double>>();
+        for(TOPTWEliteSolution initial : elite) {
+            TOPTWPathRelinking relinking = new TOPTWPathRelinking(this.solution.getProblem());
+            if(this.localSearch) {
+                this.configureLocalSearch(relinking.getLocalSearch());
+            } else {
+                relinking.setLocalSearch(null);
+            }
+            futures.add(executor.submit(() -> {
+                double best = initial.getFitness();
+                try {
+                    for(TOPTWEliteSolution guiding : elite) {
+                        if(this.stoppingCriteria != null && this.stoppingCriteria.isCancelled()) {
+                            break;
+                        }
+                        if(guiding != initial) {
+                            TOPTWSolution relinked = relinking.relink(initial, guiding);
+                            if(relinked != null) {
+                                double fitness = relinked.evaluateFitness();
+                                this.elitePool.offer(relinked, fitness);
+                                best = Math.max(best, fitness);
+                            }
+                        }
+                    }
+                } finally {
+                    this.solution.getProblem().getDistanceMatrix().releaseCache();
+                }
+                return best;
+            }));
+        }
+        double best = 0.0;
+        try {
+            for(Future<Double> future : futures) {
+                best = Math.max(best, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return best;
+    }
+
+    /**
+     * Método que crea un GRASP independiente, con su propia solución y un flujo de números aleatorios
+     * separado del de esta instancia, para ejecutarlo en otro hilo.
+     *
+     * @return GRASP con la misma configuración que éste.
+     */
+    private TOPTWGRASP createWorker() {
+        TOPTWGRASP worker = new TOPTWGRASP(new TOPTWSolution(this.solution.getProblem()), this.random.split());
+        worker.setIncrementalEvaluation(this.incrementalEvaluation);
+        worker.setGranularEvaluation(this.granularEvaluation);
+        worker.setLocalSearch(this.localSearch);
+        worker.setSkipDuplicates(this.skipDuplicates);
+        worker.setElitePool(this.elitePool);
+        worker.setSelection(this.selection);
+        worker.setAlpha(this.alpha);
+        worker.setStoppingCriteria(this.stoppingCriteria);
+        this.configureLocalSearch(worker.getLocalSearchEngine());
+        return worker;
+    }
+
+    /**
+     * Método que configura otra búsqueda local (de un hilo o del path relinking) igual que la de esta instancia.
+     *
+     * @param engine Búsqueda local a configurar.
+     */
+    private void configureLocalSearch(TOPTWLocalSearch engine) {
+        if(this.localSearchEngine == null) {
+            return;
+        }
+        engine.setOrOptLength(this.localSearchEngine.getOrOptLength());
+        TOPTWInterRouteSearch interRoute = this.localSearchEngine.getInterRouteSearch();
+        if(interRoute == null) {
+            engine.setInterRouteSearch(null);
+        } else {
+            engine.setInterRouteSearch(new TOPTWInterRouteSearch(this.solution.getProblem(), interRoute.getMaxChainLength(), interRoute.getPruningMargin()));
+        }
+        if(this.localSearchEngine.getInsertionSearch() == null) {
+            engine.setInsertionSearch(null);
+        } else {
+            engine.getInsertionSearch().setGranular(this.localSearchEngine.getInsertionSearch().isGranular());
+        }
+    }
+
+    /**
+     * Método que ejecuta un número de iteraciones GRASP sobre la solución de esta instancia.
+     * Si se descartan las construcciones repetidas, el fitness obtenido tras la búsqueda local se guarda
+     * por hash de arcos de la construcción; una construcción ya vista cuenta como iteración con el fitness
+     * guardado, pero no se mejora ni se informa de ella de nuevo.
+     * En el modo reactivo cada iteración sortea su configuración y le atribuye el fitness obtenido,
+     * también cuando la construcción está repetida.
+     * Las iteraciones terminan antes de maxIterations si se cumple algún criterio de parada. Cada mejora se
+     * copia en la mejor solución del conjunto de soluciones de trabajo, y al terminar el resultado recibe
+     * una copia independiente de ella.
+     *
+     * @param maxIterations Número de iteraciones.
+     * @param maxSizeRCL Tamaño máximo de la lista restringida de candidatos (sin uso en el modo reactivo).
+     * @param reactive Parámetros del GRASP reactivo, o null para usar maxSizeRCL, selection y alpha.
+     * @param reporter Salida de resultados de cada iteración.
+     * @return Resultado de las iteraciones.
+     */
+    private TOPTWGRASPResult runIterations(int maxIterations, int maxSizeRCL, TOPTWReactiveParameters reactive, TOPTWReporter reporter) {
+        TOPTWGRASPResult result = new TOPTWGRASPResult();
+        TOPTWSolutionPool pool = this.getSolutionPool();
+        pool.clearBest();
+        pool.clearSeen();
         for(int i = 0; i < maxIterations; i++) {
+            if(this.stoppingCriteria != null && this.stoppingCriteria.isStopped()) {
+                break;
+            }
             
-            this.computeGreedySolution(maxSizeRCL);
+            int configuration = -1;
+            if(reactive != null) {
+                configuration = reactive.sample(this.random);
+                this.computeGreedySolution(reactive.getRclSize(configuration), reactive.getSelection(configuration), reactive.getAlpha(configuration));
+            } else {
+                this.computeGreedySolution(maxSizeRCL);
+            }
+
+            // CONSTRUCCIÓN REPETIDA: la búsqueda local llevaría a la misma solución
+            long constructionHash = this.solution.getArcHash();
+            if(this.skipDuplicates) {
+                double seenFitness = pool.getSeenFitness(constructionHash);
+                if(seenFitness != TOPTWEvaluator.NO_EVALUATED) {
+                    result.addDuplicate(seenFitness);
+                    if(reactive != null) {
+                        reactive.record(configuration, seenFitness);
+                    }
+                    if(this.stoppingCriteria != null) {
+                        this.stoppingCriteria.record(seenFitness);
+                    }
+                    continue;
+                }
+            }
+
+            // BÚSQUEDA LOCAL
+            if(this.localSearch) {
+                this.getLocalSearchEngine().improve(this.solution);
+            }
             
             // IMPRIMIR SOLUCION
             double fitness = this.solution.evaluateFitness();
-            System.out.println(this.solution.getInfoSolution());
+            if(this.skipDuplicates) {
+                pool.putSeen(constructionHash, fitness);
+            }
+            if(reactive != null) {
+                reactive.record(configuration, fitness);
+            }
+            if(this.elitePool != null) {
+                this.elitePool.offer(this.solution, fitness);
+            }
+            boolean improved = result.addIteration(fitness);
+            if(improved) {
+                pool.updateBest(this.solution, fitness);
+            }
+            if(this.stoppingCriteria != null) {
+                this.stoppingCriteria.record(fitness);
+            }
+            reporter.reportIteration(i, this.solution, improved);
             //System.out.println("Press Any Key To Continue...");
             //new java.util.Scanner(System.in).nextLine();
-            averageFitness += fitness;
-            if(bestSolution < fitness) {
-                bestSolution = fitness;
-            }
             //double fitness = this.solution.printSolution();
-                   
-            /******
-            * 
-            * BÚSQUEDA LOCAL
-            * 
-            */
         }
-        averageFitness = averageFitness/maxIterations;
-        System.out.println(" --> MEDIA: "+averageFitness);
-        System.out.println(" --> MEJOR SOLUCION: "+bestSolution);
+        if(pool.hasBest()) {
+            result.setBestSolution(pool.getBest().snapshot());
+        }
+        return result;
     }
 
     /**
@@ -98,30 +532,27 @@ public class TOPTWGRASP {
      * @return Posición seleccionada aleatoriamente.
      */
     public int aleatorySelectionRCL(int maxTRCL) {
-        SecureRandom secureRandom = new SecureRandom();
         int low = 0;
         int high = maxTRCL;
-        int posSelected = secureRandom.nextInt(high - low) + low;
+        int posSelected = this.random.nextInt(high - low) + low;
         return posSelected;
     }
 
     /**
      * Método que selecciona el mejor elemento de la lista restringida de candidatos.
      *
-     * @param rcl Lista restringida de candidatos.
+     * @param rcl Lista de candidatos con la lista restringida seleccionada al principio.
+     * @param rclSize Tamaño de la lista restringida de candidatos.
      * @return Posición del mejor elemento.
      */
-    public int fuzzySelectionBestFDRCL(ArrayList< double[] > rcl) {
-        double[] membershipFunction = new double[rcl.size()];
-        double maxSc = this.getMaxScore();
-        for(int j=0; j < rcl.size(); j++) {
-            membershipFunction[j] = 1 - ((rcl.get(j)[4])/maxSc);
-        }
+    public int fuzzySelectionBestFDRCL(TOPTWCandidateList rcl, int rclSize) {
+        TOPTW problem = this.solution.getProblem();
         double minMemFunc = Double.MAX_VALUE;
         int posSelected = -1;
-        for(int i = 0; i < rcl.size(); i++) {
-            if(minMemFunc > membershipFunction[i]) {
-                minMemFunc = membershipFunction[i];
+        for(int i = 0; i < rclSize; i++) {
+            double membership = problem.getScoreMembership(rcl.getCustomer(i));
+            if(minMemFunc > membership) {
+                minMemFunc = membership;
                 posSelected = i;
             }
         }
@@ -130,115 +561,124 @@ public class TOPTWGRASP {
 
     /**
      * Método que selecciona un elemento de la lista restringida de candidatos mediante un corte alfa aleatorio.
+     * Se cuentan los candidatos del corte alfa y se elige uno al azar recorriendo de nuevo la lista, sin crear listas auxiliares.
      *
-     * @param rcl Lista restringida de candidatos.
+     * @param rcl Lista de candidatos con la lista restringida seleccionada al principio.
+     * @param rclSize Tamaño de la lista restringida de candidatos.
      * @param alpha Valor de corte alfa.
      * @return Posición del elemento seleccionado.
      */
-    public int fuzzySelectionAlphaCutRCL(ArrayList< double[] > rcl, double alpha) {
-        ArrayList< double[] > rclAlphaCut = new ArrayList< double[] >();
-        ArrayList< Integer > rclPos = new ArrayList< Integer >();
-        double[] membershipFunction = new double[rcl.size()];
-        double maxSc = this.getMaxScore();
-        for(int j=0; j < rcl.size(); j++) {
-            membershipFunction[j] = 1 - ((rcl.get(j)[4])/maxSc);
-            if(membershipFunction[j] <= alpha) {
-                rclAlphaCut.add(rcl.get(j));
-                rclPos.add(j);
+    public int fuzzySelectionAlphaCutRCL(TOPTWCandidateList rcl, int rclSize, double alpha) {
+        TOPTW problem = this.solution.getProblem();
+        int alphaCutSize = 0;
+        for(int j=0; j < rclSize; j++) {
+            if(problem.getScoreMembership(rcl.getCustomer(j)) <= alpha) {
+                alphaCutSize++;
             }
         }
         int posSelected = -1;
-        if(rclAlphaCut.size() > 0) {
-            posSelected = rclPos.get(aleatorySelectionRCL(rclAlphaCut.size()));
+        if(alphaCutSize > 0) {
+            int selected = aleatorySelectionRCL(alphaCutSize);
+            for(int j=0; j < rclSize && posSelected == -1; j++) {
+                if(problem.getScoreMembership(rcl.getCustomer(j)) <= alpha) {
+                    if(selected == 0) {
+                        posSelected = j;
+                    }
+                    selected--;
+                }
+            }
         } else {
-            posSelected = aleatorySelectionRCL(rcl.size());
+            posSelected = aleatorySelectionRCL(rclSize);
         }
         return posSelected;
     }
 
     /**
-     * Método que implementa la construcción de una solución inicial mediante un algoritmo voraz.
+     * Método que implementa la construcción de una solución inicial mediante un algoritmo voraz, con la
+     * estrategia de selección y el valor de corte alfa de esta instancia.
      *
      * @param maxSizeRCL Tamaño máximo de la lista restringida de candidatos.
      */
     public void computeGreedySolution(int maxSizeRCL) {
+        this.computeGreedySolution(maxSizeRCL, this.selection, this.alpha);
+    }
+
+    /**
+     * Método que implementa la construcción de una solución inicial mediante un algoritmo voraz.
+     *
+     * @param maxSizeRCL Tamaño máximo de la lista restringida de candidatos.
+     * @param selection Estrategia de selección de la lista restringida de candidatos.
+     * @param alpha Valor de corte alfa de la selección fuzzy.
+     */
+    public void computeGreedySolution(int maxSizeRCL, int selection, double alpha) {
         // inicialización
         this.solution.initSolution();
         
-        // tiempo de salida y score por ruta y cliente
-        ArrayList<ArrayList<Double>> departureTimesPerClient = new ArrayList<ArrayList<Double>>();
-        ArrayList<Double> init = new ArrayList<Double>();
-        for(int z = 0; z < this.solution.getProblem().getPOIs()+this.solution.getProblem().getVehicles(); z++) {init.add(0.0);}
-        departureTimesPerClient.add(0, init);
-        
         // clientes
-        ArrayList<Integer> customers = new ArrayList<Integer>();
-        for(int j = 1; j <= this.solution.getProblem().getPOIs(); j++) { customers.add(j); }
+        if(this.customers == null || this.customers.length != this.solution.getProblem().getPOIs()) {
+            this.customers = new int[this.solution.getProblem().getPOIs()];
+        }
+        int[] customers = this.customers;
+        int pending = 0;
+        // los POIs que ninguna ruta factible puede visitar no son candidatos
+        for(int j = 1; j <= this.solution.getProblem().getPOIs(); j++) {
+            if(this.solution.getProblem().isReachable(j)) { customers[pending++] = j; }
+        }
         
         // Evaluar coste incremental de los elementos candidatos
-        ArrayList< double[] > candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
-        
-        Collections.sort(candidates, new Comparator<double[]>() {
-            public int compare(double[] a, double[] b) {   
-                return Double.compare(a[a.length-2], b[b.length-2]);
-            }
-        });
+        TOPTWCandidateList candidates = this.comprehensiveEvaluation(customers, pending);
+        int modifiedRoute = -1;
 
         int maxTRCL = maxSizeRCL;
         boolean existCandidates = true;
 
-        while(!customers.isEmpty() && existCandidates) {
+        while(pending > 0 && existCandidates) {
             if(!candidates.isEmpty()) {
-                //Construir lista restringida de candidatos
-                ArrayList< double[] > rcl = new ArrayList< double[] >();
-                maxTRCL = maxSizeRCL;
-                if(maxTRCL > candidates.size()) { maxTRCL = candidates.size(); }
-                for(int j=0; j < maxTRCL; j++) { rcl.add(candidates.get(j)); }
+                //Construir lista restringida de candidatos: los maxTRCL de menor coste incremental
+                maxTRCL = candidates.selectBest(maxSizeRCL);
 
                 //Selección aleatoria o fuzzy de candidato de la lista restringida
                 int posSelected = -1;
-                int selection = 3;
-                double alpha = 0.8;
                 switch (selection) {
-                    case 1:  posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria
+                    case TOPTWGRASP.RANDOM_SELECTION:  posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria
                              break;
-                    case 2:  posSelected = this.fuzzySelectionBestFDRCL(rcl);   // Selección fuzzy con mejor valor de alpha
+                    case TOPTWGRASP.FUZZY_BEST_SELECTION:  posSelected = this.fuzzySelectionBestFDRCL(candidates, maxTRCL);   // Selección fuzzy con mejor valor de alpha
                              break;
-                    case 3:  posSelected = this.fuzzySelectionAlphaCutRCL(rcl, alpha); // Selección fuzzy con alpha corte aleatoria
+                    case TOPTWGRASP.FUZZY_ALPHA_CUT_SELECTION:  posSelected = this.fuzzySelectionAlphaCutRCL(candidates, maxTRCL, alpha); // Selección fuzzy con alpha corte aleatoria
                              break;
                     default: posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria por defecto
                              break;
                 }
                 
-                double[] candidateSelected = rcl.get(posSelected);
-                for(int j=0; j < customers.size(); j++) {
-                    if(customers.get(j)==candidateSelected[0]) {
-                        customers.remove(j);
+                int customerSelected = candidates.getCustomer(posSelected);
+                int routeSelected = candidates.getRoute(posSelected);
+                for(int j=0; j < pending; j++) {
+                    if(customers[j]==customerSelected) {
+                        // se conserva el orden de los clientes restantes
+                        System.arraycopy(customers, j + 1, customers, j, pending - j - 1);
+                        pending--;
+                        break;
                     }
-                }              
+                }
                 
-                updateSolution(candidateSelected, departureTimesPerClient);
+                updateSolution(customerSelected, routeSelected, candidates.getPredecessor(posSelected));
+                modifiedRoute = routeSelected;
 
             } else { // No hay candidatos a insertar en la solución, crear otra ruta
                 if(this.solution.getCreatedRoutes() < this.solution.getProblem().getVehicles()) {
-                    int newDepot = this.solution.addRoute();
-                    ArrayList<Double> initNew = new ArrayList<Double>();
-                    for(int z = 0; z < this.solution.getProblem().getPOIs()+this.solution.getProblem().getVehicles(); z++) {initNew.add(0.0);}
-                    departureTimesPerClient.add(initNew);
+                    this.solution.addRoute();
+                    modifiedRoute = this.solution.getCreatedRoutes() - 1;
                 } 
                 else {
                     existCandidates = false;
                 }
             }
             //Reevaluar coste incremental de los elementos candidatos
-            candidates.clear();
-            candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
-            Collections.sort(candidates, new Comparator<double[]>() {
-                // Ordenar por coste incremental
-                public int compare(double[] a, double[] b) {
-                    return Double.compare(a[a.length-2], b[b.length-2]);
-                }
-            });
+            if(this.incrementalEvaluation) {
+                candidates = this.incrementalEvaluation(customers, pending, modifiedRoute);
+            } else {
+                candidates = this.comprehensiveEvaluation(customers, pending);
+            }
         }
         
     }
@@ -246,130 +686,135 @@ public class TOPTWGRASP {
     /**
      * Método que actualiza la solución tras la inserción de un cliente.
      *
-     * @param candidateSelected Elemento seleccionado.
-     * @param departureTimes Tiempos de salida de los clientes.
+     * @param customer Cliente a insertar.
+     * @param route Ruta en la que se inserta el cliente.
+     * @param predecessor Predecesor del cliente en la ruta.
      */
-    public void updateSolution(double[] candidateSelected, ArrayList< ArrayList< Double > > departureTimes) {
-        // Inserción del cliente en la ruta  return: cliente, ruta, predecesor, coste
-        this.solution.setPredecessor((int)candidateSelected[0], (int)candidateSelected[2]);
-        this.solution.setSuccessor((int)candidateSelected[0], this.solution.getSuccessor((int)candidateSelected[2]));
-        this.solution.setSuccessor((int)candidateSelected[2], (int)candidateSelected[0]);
-        this.solution.setPredecessor(this.solution.getSuccessor((int)candidateSelected[0]), (int)candidateSelected[0]);
-        
-        // Actualización de las estructuras de datos y conteo a partir de la posición a insertar
-        double costInsertionPre = departureTimes.get((int)candidateSelected[1]).get((int)candidateSelected[2]);
-        ArrayList<Double> route = departureTimes.get((int)candidateSelected[1]);
-        int pre=(int)candidateSelected[2], suc=-1;
-        int depot = this.solution.getIndexRoute((int)candidateSelected[1]);
-        do {
-            suc = this.solution.getSuccessor(pre);
-            costInsertionPre += this.solution.getDistance(pre, suc);
-            
-            if(costInsertionPre < this.solution.getProblem().getReadyTime(suc)) {
-                costInsertionPre = this.solution.getProblem().getReadyTime(suc);
-            }
-            costInsertionPre += this.solution.getProblem().getServiceTime(suc);
-             
-            if(!this.solution.isDepot(suc))
-                route.set(suc, costInsertionPre);
-            pre = suc;
-        } while((suc != depot));
-        
-        // Actualiza tiempos
-        departureTimes.set((int)candidateSelected[1], route);
+    public void updateSolution(int customer, int route, int predecessor) {
+        // Inserción del cliente en la ruta y actualización de los tiempos a partir de la posición a insertar
+        this.solution.insertAfter(customer, predecessor);
     }
 
-    //return: cliente, ruta, predecesor, coste tiempo, score
     /**
      * Método que evalúa la inserción de un cliente en una ruta.
      *
-     * @param customers Lista de clientes.
-     * @param departureTimes Tiempos de salida de los clientes.
-     * @return Lista de candidatos.
-     */
-    public ArrayList< double[] > comprehensiveEvaluation(ArrayList<Integer> customers, ArrayList< ArrayList< Double > > departureTimes) {
-        ArrayList< double[] > candidatesList = new ArrayList< double[] >();
-        double[] infoCandidate = new double[5];
-        boolean validFinalInsertion = true;
-        infoCandidate[0] = -1;
-        infoCandidate[1] = -1;
-        infoCandidate[2] = -1;
-        infoCandidate[3] = Double.MAX_VALUE;
-        infoCandidate[4] = -1;
-        
-        for(int c = 0; c < customers.size(); c++) { // clientes disponibles
-            for(int k = 0; k < this.solution.getCreatedRoutes(); k++) { // rutas creadas
-                validFinalInsertion = true;
-                int depot = this.solution.getIndexRoute(k);
-                int pre=-1, suc=-1;
-                double costInsertion = 0;
-                pre = depot;
-                int candidate = customers.get(c);
-                do {                                                // recorremos la ruta
-                    validFinalInsertion = true;
-                    suc = this.solution.getSuccessor(pre);
-                    double timesUntilPre = departureTimes.get(k).get(pre) + this.solution.getDistance(pre, candidate);
-                    if(timesUntilPre < (this.solution.getProblem().getDueTime(candidate))) {
-                        double costCand = 0;
-                        if(timesUntilPre < this.solution.getProblem().getReadyTime(candidate)) {
-                            costCand = this.solution.getProblem().getReadyTime(candidate);
-                        } else { costCand = timesUntilPre; }
-                        costCand +=  this.solution.getProblem().getServiceTime(candidate);
-                        if(costCand > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false; }
-                        
-                        // Comprobar TW desde candidate hasta sucesor
-                        double timesUntilSuc = costCand + this.solution.getDistance(candidate, suc);
-                        if(timesUntilSuc < (this.solution.getProblem().getDueTime(suc))) {                                
-                            double costSuc = 0;
-                            if(timesUntilSuc < this.solution.getProblem().getReadyTime(suc)) {
-                                costSuc = this.solution.getProblem().getReadyTime(suc);
-                            } else { costSuc = timesUntilSuc; }
-                            costSuc +=  this.solution.getProblem().getServiceTime(suc);
-                            costInsertion = costSuc;                            
-                            if(costSuc > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false;}
-
-                            int pre2=suc, suc2 = -1;
-                            if(suc != depot)
-                                do {
-                                    suc2 = this.solution.getSuccessor(pre2);
-                                    double timesUntilSuc2 = costInsertion + this.solution.getDistance(pre2, suc2);
-                                    if(timesUntilSuc2 < (this.solution.getProblem().getDueTime(suc2))) {
-                                        if(timesUntilSuc2 < this.solution.getProblem().getReadyTime(suc2)) {
-                                            costInsertion = this.solution.getProblem().getReadyTime(suc2);
-                                        } else { costInsertion = timesUntilSuc2; }
-                                        costInsertion += this.solution.getProblem().getServiceTime(suc2);
-                                        if(costInsertion > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false; }
-                                    } else { validFinalInsertion = false; }         
-                                    pre2 = suc2;
-                                } while((suc2 != depot) && validFinalInsertion);
-                        } else { validFinalInsertion = false; }
-                    } else { validFinalInsertion = false; }
-
-                    if(validFinalInsertion==true) { // cliente, ruta, predecesor, coste
-                        if(costInsertion < infoCandidate[3]) {
-                            infoCandidate[0] = candidate; infoCandidate[1] = k; infoCandidate[2] = pre; infoCandidate[3] = costInsertion; infoCandidate[4] = this.solution.getProblem().getScore(candidate); // cliente, ruta, predecesor, coste, score
-                        }
+     * @param customers Clientes pendientes.
+     * @param size Número de clientes pendientes.
+     * @return Lista de candidatos (reutilizada entre pasos).
+     */
+    public TOPTWCandidateList comprehensiveEvaluation(int[] customers, int size) {
+        this.ensureInsertionRecords();
+        for(int k = 0; k < this.solution.getCreatedRoutes(); k++) { // rutas creadas
+            this.evaluateRoute(customers, size, k);
+        }
+        return this.collectCandidates(customers, size);
+    }
+
+    /**
+     * Método que reevalúa únicamente la ruta modificada en el último paso de la construcción.
+     * El resto de rutas conserva los registros de mejor inserción calculados anteriormente.
+     *
+     * @param customers Clientes pendientes.
+     * @param size Número de clientes pendientes.
+     * @param modifiedRoute Ruta modificada en el último paso, o -1 si no se modificó ninguna.
+     * @return Lista de candidatos (reutilizada entre pasos).
+     */
+    public TOPTWCandidateList incrementalEvaluation(int[] customers, int size, int modifiedRoute) {
+        this.ensureInsertionRecords();
+        if(modifiedRoute >= 0) {
+            this.evaluateRoute(customers, size, modifiedRoute);
+        }
+        return this.collectCandidates(customers, size);
+    }
+
+    /**
+     * Método que reserva los registros de mejor inserción por ruta y cliente y la lista de candidatos.
+     */
+    private void ensureInsertionRecords() {
+        int routes = this.solution.getProblem().getVehicles();
+        int nodes = this.solution.getProblem().getPOIs() + 1;
+        if(this.bestInsertionCost == null || this.bestInsertionCost.length != routes || this.bestInsertionCost[0].length != nodes) {
+            this.bestInsertionCost = new double[routes][nodes];
+            this.bestInsertionPredecessor = new int[routes][nodes];
+            this.candidates = new TOPTWCandidateList(nodes);
+        }
+    }
+
+    /**
+     * Método que calcula la mejor posición de inserción de cada cliente en una ruta.
+     * En la evaluación granular solo se consideran los extremos de la ruta y las posiciones anterior y
+     * posterior a cada vecino cercano del cliente que esté en la ruta.
+     *
+     * @param customers Clientes pendientes.
+     * @param size Número de clientes pendientes.
+     * @param k Ruta a evaluar.
+     */
+    private void evaluateRoute(int[] customers, int size, int k) {
+        int depot = this.solution.getIndexRoute(k);
+        for(int c = 0; c < size; c++) { // clientes disponibles
+            int candidate = customers[c];
+            this.bestInsertionCost[k][candidate] = Double.MAX_VALUE;
+            this.bestInsertionPredecessor[k][candidate] = -1;
+            if(this.granularEvaluation) {
+                this.evaluateInsertion(k, candidate, depot);
+                this.evaluateInsertion(k, candidate, this.solution.getPredecessor(depot));
+                for(int neighbor : this.solution.getProblem().getNeighbors(candidate)) {
+                    if(neighbor != 0 && this.solution.getRouteOf(neighbor) == k) {
+                        this.evaluateInsertion(k, candidate, neighbor);
+                        this.evaluateInsertion(k, candidate, this.solution.getPredecessor(neighbor));
                     }
-                    
-                    pre = suc;
-                } while(suc != depot);
-            } //rutas creadas
-            
-            // almacenamos en la lista de candidatos la mejor posición de inserción para el cliente
-            if(infoCandidate[0]!=-1 && infoCandidate[1]!=-1 && infoCandidate[2]!=-1 && infoCandidate[3] != Double.MAX_VALUE && infoCandidate[4]!=-1) {
-                double[] infoCandidate2 = new double[5];
-                infoCandidate2[0] = infoCandidate[0];  infoCandidate2[1] = infoCandidate[1];  
-                infoCandidate2[2] = infoCandidate[2];  infoCandidate2[3] = infoCandidate[3];
-                infoCandidate2[4] = infoCandidate[4];
-                candidatesList.add(infoCandidate2);
+                }
+            } else {
+                int pre = depot;
+                do {                                            // recorremos la ruta
+                    this.evaluateInsertion(k, candidate, pre);
+                    pre = this.solution.getSuccessor(pre);
+                } while(pre != depot);
             }
-            validFinalInsertion = true;
-            infoCandidate[0] = -1;  infoCandidate[1] = -1;
-            infoCandidate[2] = -1;  infoCandidate[3] = Double.MAX_VALUE;
-            infoCandidate[4] = -1;
         } // cliente
+    }
 
-        return candidatesList;        
+    /**
+     * Método que evalúa la inserción de un cliente tras un nodo de una ruta y actualiza su mejor inserción en la ruta.
+     *
+     * @param k Ruta.
+     * @param candidate Cliente a insertar.
+     * @param pre Nodo de la ruta tras el que se inserta el cliente.
+     */
+    private void evaluateInsertion(int k, int candidate, int pre) {
+        // Comprobar TW desde candidate hasta el final de la ruta con la holgura del sucesor
+        double costInsertion = this.solution.getInsertionEndTime(candidate, pre);
+        if(costInsertion < this.bestInsertionCost[k][candidate]) { // predecesor, coste
+            this.bestInsertionCost[k][candidate] = costInsertion;
+            this.bestInsertionPredecessor[k][candidate] = pre;
+        }
+    }
+
+    /**
+     * Método que construye la lista de candidatos a partir de los registros de mejor inserción por ruta.
+     *
+     * @param customers Clientes pendientes.
+     * @param size Número de clientes pendientes.
+     * @return Lista de candidatos (reutilizada entre pasos).
+     */
+    private TOPTWCandidateList collectCandidates(int[] customers, int size) {
+        this.candidates.clear();
+        for(int c = 0; c < size; c++) { // clientes disponibles
+            int candidate = customers[c];
+            int bestRoute = -1;
+            double bestCost = Double.MAX_VALUE;
+            for(int k = 0; k < this.solution.getCreatedRoutes(); k++) { // rutas creadas
+                if(this.bestInsertionPredecessor[k][candidate] != -1 && this.bestInsertionCost[k][candidate] < bestCost) {
+                    bestCost = this.bestInsertionCost[k][candidate];
+                    bestRoute = k;
+                }
+            }
+            // almacenamos en la lista de candidatos la mejor posición de inserción para el cliente
+            if(bestRoute != -1) {
+                this.candidates.add(candidate, bestRoute, this.bestInsertionPredecessor[bestRoute][candidate], bestCost, this.solution.getProblem().getScore(candidate));
+            }
+        } // cliente
+        return this.candidates;
     }
 
     /**
@@ -388,6 +833,20 @@ public class TOPTWGRASP {
      */
     public void setSolution(TOPTWSolution solution) {
         this.solution = solution;
+        this.solutionPool = null;
+    }
+
+    /**
+     * Método que devuelve las soluciones de trabajo de esta instancia, cuya solución actual es la solución
+     * del GRASP, creándolas si es necesario.
+     *
+     * @return Soluciones de trabajo.
+     */
+    public TOPTWSolutionPool getSolutionPool() {
+        if(this.solutionPool == null) {
+            this.solutionPool = new TOPTWSolutionPool(this.solution);
+        }
+        return this.solutionPool;
     }
 
     /**
@@ -408,18 +867,211 @@ public class TOPTWGRASP {
         this.solutionTime = solutionTime;
     }
 
+    /**
+     * Método que devuelve la salida de resultados.
+     *
+     * @return Salida de resultados.
+     */
+    public TOPTWReporter getReporter() {
+        return reporter;
+    }
+
+    /**
+     * Método que establece la salida de resultados.
+     *
+     * @param reporter Salida de resultados.
+     */
+    public void setReporter(TOPTWReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    /**
+     * Método que devuelve el generador de números aleatorios.
+     *
+     * @return Generador de números aleatorios.
+     */
+    public RandomGenerator.SplittableGenerator getRandom() {
+        return random;
+    }
+
+    /**
+     * Método que establece el generador de números aleatorios.
+     *
+     * @param random Generador de números aleatorios.
+     */
+    public void setRandom(RandomGenerator.SplittableGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Método que indica si la construcción reevalúa únicamente la ruta modificada.
+     *
+     * @return true si la evaluación es incremental, false si se reevalúan todas las rutas.
+     */
+    public boolean isIncrementalEvaluation() {
+        return incrementalEvaluation;
+    }
+
+    /**
+     * Método que establece si la construcción reevalúa únicamente la ruta modificada.
+     *
+     * @param incrementalEvaluation true para la evaluación incremental, false para reevaluar todas las rutas.
+     */
+    public void setIncrementalEvaluation(boolean incrementalEvaluation) {
+        this.incrementalEvaluation = incrementalEvaluation;
+    }
+
+    /**
+     * Método que indica si la construcción solo evalúa las posiciones junto a los vecinos más cercanos.
+     *
+     * @return true si la evaluación es granular, false si se evalúan todas las posiciones.
+     */
+    public boolean isGranularEvaluation() {
+        return granularEvaluation;
+    }
+
+    /**
+     * Método que establece si la construcción solo evalúa las posiciones junto a los vecinos más cercanos.
+     * Requiere que el problema tenga listas de vecinos ({@link TOPTW#calculateNeighborLists(int)}).
+     *
+     * @param granularEvaluation true para la evaluación granular, false para evaluar todas las posiciones.
+     */
+    public void setGranularEvaluation(boolean granularEvaluation) {
+        this.granularEvaluation = granularEvaluation;
+    }
+
+    /**
+     * Método que indica si se aplica la búsqueda local a cada solución construida.
+     *
+     * @return true si se aplica la búsqueda local, false en caso contrario.
+     */
+    public boolean isLocalSearch() {
+        return localSearch;
+    }
+
+    /**
+     * Método que establece si se aplica la búsqueda local a cada solución construida.
+     *
+     * @param localSearch true para aplicar la búsqueda local, false para devolver la construcción voraz.
+     */
+    public void setLocalSearch(boolean localSearch) {
+        this.localSearch = localSearch;
+    }
+
+    /**
+     * Método que indica si se descartan las construcciones repetidas.
+     *
+     * @return true si se descartan, false si se mejoran todas las construcciones.
+     */
+    public boolean isSkipDuplicates() {
+        return skipDuplicates;
+    }
+
+    /**
+     * Método que establece si se descartan las construcciones repetidas. Con la traza completa, las
+     * iteraciones con una construcción repetida no se escriben.
+     *
+     * @param skipDuplicates true para descartar las construcciones repetidas, false para mejorarlas todas.
+     */
+    public void setSkipDuplicates(boolean skipDuplicates) {
+        this.skipDuplicates = skipDuplicates;
+    }
+
+    /**
+     * Método que devuelve el conjunto élite.
+     *
+     * @return Conjunto élite, o null si no se usa.
+     */
+    public TOPTWElitePool getElitePool() {
+        return elitePool;
+    }
+
+    /**
+     * Método que establece el conjunto élite. Por defecto no hay conjunto élite; con él, cada ejecución
+     * termina con una fase de path relinking en paralelo, por lo que con una semilla fija los resultados
+     * dejan de ser reproducibles. Se vacía al empezar cada ejecución.
+     *
+     * @param elitePool Conjunto élite, por ejemplo new TOPTWElitePool(10, 4), o null para no guardar
+     * soluciones ni aplicar path relinking.
+     */
+    public void setElitePool(TOPTWElitePool elitePool) {
+        this.elitePool = elitePool;
+    }
+
+    /**
+     * Método que devuelve la estrategia de selección de la lista restringida de candidatos.
+     *
+     * @return Estrategia de selección.
+     */
+    public int getSelection() {
+        return selection;
+    }
+
+    /**
+     * Método que establece la estrategia de selección de la lista restringida de candidatos.
+     *
+     * @param selection RANDOM_SELECTION, FUZZY_BEST_SELECTION o FUZZY_ALPHA_CUT_SELECTION.
+     */
+    public void setSelection(int selection) {
+        this.selection = selection;
+    }
+
+    /**
+     * Método que devuelve el valor de corte alfa de la selección fuzzy.
+     *
+     * @return Valor de corte alfa.
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Método que establece el valor de corte alfa de la selección fuzzy.
+     *
+     * @param alpha Valor de corte alfa.
+     */
+    public void setAlpha(double alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * Método que devuelve los criterios de parada adicionales.
+     *
+     * @return Criterios de parada, o null si solo se usa el número de iteraciones.
+     */
+    public TOPTWStoppingCriteria getStoppingCriteria() {
+        return stoppingCriteria;
+    }
+
+    /**
+     * Método que establece los criterios de parada adicionales. Se ponen en marcha al empezar cada
+     * ejecución y se comparten con los hilos del GRASP paralelo.
+     *
+     * @param stoppingCriteria Criterios de parada, o null para usar solo el número de iteraciones.
+     */
+    public void setStoppingCriteria(TOPTWStoppingCriteria stoppingCriteria) {
+        this.stoppingCriteria = stoppingCriteria;
+    }
+
+    /**
+     * Método que devuelve la búsqueda local de esta instancia, creándola si es necesario.
+     *
+     * @return Búsqueda local.
+     */
+    public TOPTWLocalSearch getLocalSearchEngine() {
+        if(this.localSearchEngine == null) {
+            this.localSearchEngine = new TOPTWLocalSearch(this.solution.getProblem());
+        }
+        return this.localSearchEngine;
+    }
+
     /**
      * Método que devuelve el score máximo.
      *
      * @return Score máximo.
      */
     public double getMaxScore() {
-        double maxSc = -1.0;
-        for(int i = 0; i < this.solution.getProblem().getScore().length; i++) {
-            if(this.solution.getProblem().getScore(i) > maxSc)
-                maxSc = this.solution.getProblem().getScore(i);
-        }
-        return maxSc;
+        return this.solution.getProblem().getMaxScore();
     }
 
 }
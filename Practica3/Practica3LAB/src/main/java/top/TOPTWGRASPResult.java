@@ -0,0 +1,139 @@
+package top;
+
+/**
+ * Clase que almacena el resultado de una ejecución (o de una parte de ella) del algoritmo GRASP.
+ * Los resultados parciales de distintos hilos se combinan con {@link #merge(TOPTWGRASPResult)}.
+ */
+public class TOPTWGRASPResult {
+    private int iterations;
+    private double fitnessSum;
+    private double bestFitness;
+    private int duplicates;
+    private TOPTWSolution bestSolution;
+
+    /**
+     * Constructor de la clase TOPTWGRASPResult.
+     */
+    public TOPTWGRASPResult() {
+        this.iterations = 0;
+        this.fitnessSum = 0.0;
+        this.bestFitness = 0.0;
+        this.duplicates = 0;
+        this.bestSolution = null;
+    }
+
+    /**
+     * Método que registra el fitness de una iteración.
+     *
+     * @param fitness Fitness de la solución obtenida en la iteración.
+     * @return true si la solución mejora a la mejor registrada, false en caso contrario.
+     */
+    public boolean addIteration(double fitness) {
+        this.iterations++;
+        this.fitnessSum += fitness;
+        if(this.bestFitness < fitness) {
+            this.bestFitness = fitness;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Método que registra una solución obtenida fuera de las iteraciones (por ejemplo, por path relinking),
+     * que solo afecta al mejor fitness.
+     *
+     * @param fitness Fitness de la solución.
+     * @return true si la solución mejora a la mejor registrada, false en caso contrario.
+     */
+    public boolean updateBest(double fitness) {
+        if(this.bestFitness < fitness) {
+            this.bestFitness = fitness;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Método que registra una iteración cuya construcción ya se había obtenido antes, con el fitness
+     * que se obtuvo entonces.
+     *
+     * @param fitness Fitness de la solución obtenida a partir de esa construcción.
+     */
+    public void addDuplicate(double fitness) {
+        this.addIteration(fitness);
+        this.duplicates++;
+    }
+
+    /**
+     * Método que combina este resultado con otro.
+     *
+     * @param other Resultado a combinar.
+     * @return Resultado combinado.
+     */
+    public TOPTWGRASPResult merge(TOPTWGRASPResult other) {
+        TOPTWGRASPResult result = new TOPTWGRASPResult();
+        result.iterations = this.iterations + other.iterations;
+        result.fitnessSum = this.fitnessSum + other.fitnessSum;
+        result.bestFitness = Math.max(this.bestFitness, other.bestFitness);
+        result.duplicates = this.duplicates + other.duplicates;
+        result.bestSolution = other.bestFitness > this.bestFitness ? other.bestSolution : this.bestSolution;
+        return result;
+    }
+
+    /**
+     * Método que devuelve el número de iteraciones realizadas.
+     *
+     * @return Número de iteraciones.
+     */
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Método que devuelve el fitness medio de las iteraciones.
+     *
+     * @return Fitness medio.
+     */
+    public double getAverageFitness() {
+        if(this.iterations == 0) {
+            return 0.0;
+        }
+        return this.fitnessSum / this.iterations;
+    }
+
+    /**
+     * Método que devuelve el mejor fitness encontrado.
+     *
+     * @return Mejor fitness.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * Método que devuelve el número de iteraciones cuya construcción estaba repetida.
+     *
+     * @return Número de construcciones repetidas.
+     */
+    public int getDuplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * Método que devuelve una copia de la mejor solución encontrada.
+     *
+     * @return Mejor solución, o null si no se ha registrado ninguna.
+     */
+    public TOPTWSolution getBestSolution() {
+        return this.bestSolution;
+    }
+
+    /**
+     * Método que establece la copia de la mejor solución encontrada, que debe corresponder al mejor fitness.
+     *
+     * @param bestSolution Copia de la mejor solución.
+     */
+    public void setBestSolution(TOPTWSolution bestSolution) {
+        this.bestSolution = bestSolution;
+    }
+}
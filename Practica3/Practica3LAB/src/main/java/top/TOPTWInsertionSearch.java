@@ -0,0 +1,205 @@
+package top;
+
+/**
+ * Clase que implementa los movimientos propios del problema de orientación sobre los POIs que no visita
+ * ninguna ruta: insertar un POI sin visitar en la posición que menos retrasa el final de su ruta y sustituir
+ * un POI visitado por otro sin visitar de mayor score en la misma posición.
+ * Los POIs sin visitar se recorren por score descendente ({@link TOPTWUnvisitedPool}) y la factibilidad de
+ * cada movimiento se comprueba en tiempo constante con la holgura (max shift) de la solución.
+ * Ambos movimientos aumentan el score, por lo que la búsqueda termina. En modo granular las inserciones
+ * solo se evalúan en los extremos de las rutas y junto a los vecinos más cercanos del POI.
+ */
+public class TOPTWInsertionSearch {
+    private TOPTW problem;
+    private TOPTWUnvisitedPool pool;
+    private boolean granular;
+
+    // mejor inserción del POI evaluado
+    private double bestCost;
+    private int bestPre;
+
+    /**
+     * Constructor de la clase TOPTWInsertionSearch.
+     *
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWInsertionSearch(TOPTW problem) {
+        this.problem = problem;
+        this.pool = new TOPTWUnvisitedPool(problem);
+        this.granular = false;
+    }
+
+    /**
+     * Método que aplica inserciones y sustituciones hasta que ninguna aumenta el score de la solución.
+     *
+     * @param solution Solución a mejorar.
+     * @return true si se ha aumentado el score, false en caso contrario.
+     */
+    public boolean improve(TOPTWSolution solution) {
+        this.pool.load(solution);
+        boolean improved = false;
+        while(!this.pool.isEmpty()) {
+            boolean inserted = this.insertUnvisited(solution);
+            boolean replaced = this.replaceVisited(solution);
+            if(!inserted && !replaced) {
+                break;
+            }
+            improved = true;
+        }
+        return improved;
+    }
+
+    /**
+     * Método que inserta, por score descendente, cada POI sin visitar que quepa en alguna ruta, en la posición
+     * que deja el menor tiempo de finalización de la ruta.
+     *
+     * @param solution Solución.
+     * @return true si se ha insertado algún POI, false en caso contrario.
+     */
+    private boolean insertUnvisited(TOPTWSolution solution) {
+        boolean inserted = false;
+        for(int r = this.pool.next(0); r >= 0; r = this.pool.next(r + 1)) {
+            int customer = this.pool.getNode(r);
+            this.bestCost = Double.POSITIVE_INFINITY;
+            this.bestPre = -1;
+            for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                int depot = solution.getIndexRoute(k);
+                if(this.granular) {
+                    this.evaluateInsertion(solution, customer, depot);
+                    this.evaluateInsertion(solution, customer, solution.getPredecessor(depot));
+                } else {
+                    int pre = depot;
+                    do {
+                        this.evaluateInsertion(solution, customer, pre);
+                        pre = solution.getSuccessor(pre);
+                    } while(pre != depot);
+                }
+            }
+            if(this.granular) {
+                for(int neighbor : this.problem.getNeighbors(customer)) {
+                    if(neighbor != 0 && solution.getRouteOf(neighbor) != TOPTWSolution.NO_INITIALIZED) {
+                        this.evaluateInsertion(solution, customer, neighbor);
+                        this.evaluateInsertion(solution, customer, solution.getPredecessor(neighbor));
+                    }
+                }
+            }
+            if(this.bestPre != -1) {
+                solution.insertAfter(customer, this.bestPre);
+                this.pool.remove(customer);
+                inserted = true;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Método que evalúa la inserción de un POI tras un nodo de una ruta y actualiza su mejor inserción.
+     *
+     * @param solution Solución.
+     * @param customer POI a insertar.
+     * @param pre Nodo de la ruta tras el que se inserta el POI.
+     */
+    private void evaluateInsertion(TOPTWSolution solution, int customer, int pre) {
+        double cost = solution.getInsertionEndTime(customer, pre);
+        if(cost < this.bestCost) {
+            this.bestCost = cost;
+            this.bestPre = pre;
+        }
+    }
+
+    /**
+     * Método que sustituye, por score descendente de los POIs sin visitar, el POI visitado de menor score
+     * que pueda cambiarse por cada uno de ellos. Los POIs sin visitar que no superan el menor score visitado
+     * no se evalúan.
+     *
+     * @param solution Solución.
+     * @return true si se ha sustituido algún POI, false en caso contrario.
+     */
+    private boolean replaceVisited(TOPTWSolution solution) {
+        boolean replaced = false;
+        double minVisitedScore = this.getMinVisitedScore(solution);
+        for(int r = this.pool.next(0); r >= 0; r = this.pool.next(r + 1)) {
+            int customer = this.pool.getNode(r);
+            double score = this.problem.getScore(customer);
+            if(score <= minVisitedScore) {
+                break;
+            }
+            int bestReplaced = -1;
+            double bestScore = score;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                int depot = solution.getIndexRoute(k);
+                for(int node = solution.getSuccessor(depot); node != depot; node = solution.getSuccessor(node)) {
+                    double nodeScore = this.problem.getScore(node);
+                    if(nodeScore >= score) {
+                        continue;
+                    }
+                    double cost = solution.getReplacementEndTime(customer, node);
+                    if(cost == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    if(nodeScore < bestScore || (nodeScore == bestScore && cost < bestCost)) {
+                        bestScore = nodeScore;
+                        bestCost = cost;
+                        bestReplaced = node;
+                    }
+                }
+            }
+            if(bestReplaced != -1) {
+                int pre = solution.getPredecessor(bestReplaced);
+                solution.remove(bestReplaced);
+                solution.insertAfter(customer, pre);
+                this.pool.remove(customer);
+                // el menor score visitado solo puede aumentar, así que el valor anterior sigue siendo una cota válida
+                this.pool.add(bestReplaced);
+                replaced = true;
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Método que devuelve el menor score de los POIs visitados por la solución.
+     *
+     * @param solution Solución.
+     * @return Menor score visitado, o infinito si no se visita ningún POI.
+     */
+    private double getMinVisitedScore(TOPTWSolution solution) {
+        double min = Double.POSITIVE_INFINITY;
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            for(int node = solution.getSuccessor(depot); node != depot; node = solution.getSuccessor(node)) {
+                min = Math.min(min, this.problem.getScore(node));
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Método que devuelve los POIs sin visitar de la última solución mejorada.
+     *
+     * @return POIs sin visitar.
+     */
+    public TOPTWUnvisitedPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Método que indica si las inserciones solo se evalúan junto a los vecinos más cercanos.
+     *
+     * @return true si la evaluación es granular, false si se evalúan todas las posiciones.
+     */
+    public boolean isGranular() {
+        return this.granular;
+    }
+
+    /**
+     * Método que establece si las inserciones solo se evalúan junto a los vecinos más cercanos.
+     * Requiere que el problema tenga listas de vecinos ({@link TOPTW#calculateNeighborLists(int)}).
+     *
+     * @param granular true para la evaluación granular, false para evaluar todas las posiciones.
+     */
+    public void setGranular(boolean granular) {
+        this.granular = granular;
+    }
+}
@@ -0,0 +1,344 @@
+package top;
+
+/**
+ * Clase que implementa la búsqueda local entre rutas del algoritmo GRASP para el problema TOPTW.
+ * Un único movimiento de intercambio de cadenas (cross-exchange) entre dos rutas cubre los tres vecindarios:
+ * intercambiar dos cadenas de hasta maxChainLength clientes, intercambiar dos clientes (swap, cadenas de
+ * longitud 1) y mover una cadena a la otra ruta (relocate, la otra cadena vacía). Un movimiento se acepta si
+ * reduce la suma de los tiempos de finalización de ambas rutas, dejando holgura para nuevas inserciones.
+ * Cada movimiento se evalúa en tiempo constante concatenando los resúmenes de prefijos, cadenas y sufijos
+ * de las dos rutas ({@link TOPTWRouteSegments}).
+ * Siempre se descartan, sin cambiar el resultado, los pares de rutas y las cadenas cuya ganancia máxima no
+ * supera la del mejor movimiento encontrado. La cota usa la desigualdad triangular: quitar una cadena de
+ * una ruta sin insertar nada da un tiempo de finalización no mayor que insertar cualquier otra cadena en
+ * su lugar, y una ruta con solo una cadena termina antes que cualquier ruta que la contenga.
+ * Esta cota es débil, porque al final de la búsqueda la mejor ganancia es casi nula y quitar una cadena casi
+ * siempre acorta la ruta: evita en torno a un 5-10% de las cadenas en las instancias de Solomon y casi
+ * ninguna en las pr, sin una mejora apreciable del tiempo total. Queda pendiente una cota exacta que se
+ * acerque al ahorro de la poda geométrica.
+ * Además, opcionalmente, los pares de rutas cuyas cajas envolventes o intervalos de servicio están a más de
+ * pruningMargin no se evalúan, y una cadena solo se lleva a otra ruta si todos sus clientes están cerca de la
+ * caja de esa ruta. Esta poda es heurística: descarta movimientos entre zonas alejadas, que casi nunca
+ * mejoran, a cambio de rutas algo peores (en torno a un 2% más de tiempo total en las instancias pr con
+ * {@link #defaultPruningMargin(TOPTW)}). Por defecto el margen es infinito y se evalúan todos los pares.
+ */
+public class TOPTWInterRouteSearch {
+    /**
+     * Tolerancia relativa de las cotas de ganancia frente al redondeo de las distancias.
+     */
+    private static final double BOUND_TOLERANCE = 1e-6;
+
+    private TOPTW problem;
+    private int maxChainLength;
+    private double pruningMargin;
+    private TOPTWRouteSegments[] routes;
+    private int[] moved;
+    private TOPTWSegment routeA;
+    private TOPTWSegment routeB;
+    private TOPTWSegment bound;
+
+    // mejor movimiento encontrado en la pasada actual
+    private TOPTWRouteSegments bestA;
+    private TOPTWRouteSegments bestB;
+    private int bestI;
+    private int bestLengthA;
+    private int bestJ;
+    private int bestLengthB;
+    private double bestGain;
+
+    /**
+     * Constructor de la clase TOPTWInterRouteSearch, sin poda.
+     *
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWInterRouteSearch(TOPTW problem) {
+        this(problem, 2, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Constructor de la clase TOPTWInterRouteSearch.
+     *
+     * @param problem Problema TOPTW.
+     * @param maxChainLength Longitud máxima de las cadenas intercambiadas.
+     * @param pruningMargin Margen espacial y temporal de la poda (infinito para evaluar todos los pares).
+     */
+    public TOPTWInterRouteSearch(TOPTW problem, int maxChainLength, double pruningMargin) {
+        this.problem = problem;
+        this.maxChainLength = maxChainLength;
+        this.pruningMargin = pruningMargin;
+        this.routes = new TOPTWRouteSegments[problem.getVehicles()];
+        for(int k = 0; k < this.routes.length; k++) {
+            this.routes[k] = new TOPTWRouteSegments(problem, maxChainLength);
+        }
+        this.moved = new int[problem.getPOIs() + 2];
+        this.routeA = new TOPTWSegment();
+        this.routeB = new TOPTWSegment();
+        this.bound = new TOPTWSegment();
+    }
+
+    /**
+     * Método que calcula un margen de poda recomendado: la décima parte de la diagonal de la caja
+     * envolvente de los nodos de la instancia. Con él la búsqueda tarda la mitad en las instancias grandes,
+     * pero puede dejar de encontrar movimientos que mejoran.
+     *
+     * @param problem Problema TOPTW.
+     * @return Margen de poda.
+     */
+    public static double defaultPruningMargin(TOPTW problem) {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i <= problem.getPOIs(); i++) {
+            minX = Math.min(minX, problem.getX(i));
+            maxX = Math.max(maxX, problem.getX(i));
+            minY = Math.min(minY, problem.getY(i));
+            maxY = Math.max(maxY, problem.getY(i));
+        }
+        return Math.hypot(maxX - minX, maxY - minY) / 10.0;
+    }
+
+    /**
+     * Método que aplica los movimientos entre rutas hasta que ninguno reduce el tiempo total de las rutas.
+     * En cada pasada se aplica el mejor movimiento de todos los pares de rutas no podados.
+     *
+     * @param solution Solución a mejorar.
+     * @return true si se ha mejorado alguna ruta, false en caso contrario.
+     */
+    public boolean improve(TOPTWSolution solution) {
+        int created = solution.getCreatedRoutes();
+        if(created < 2) {
+            return false;
+        }
+        for(int k = 0; k < created; k++) {
+            this.routes[k].load(solution, k);
+        }
+        boolean improved = false;
+        while(true) {
+            this.bestA = null;
+            this.bestGain = TOPTWLocalSearch.EPSILON;
+            for(int a = 0; a < created; a++) {
+                for(int b = a + 1; b < created; b++) {
+                    if(this.canImprove(this.routes[a], this.routes[b]) && this.routes[a].isNear(this.routes[b], this.pruningMargin)) {
+                        this.crossExchange(this.routes[a], this.routes[b]);
+                    }
+                }
+            }
+            if(this.bestA == null || !this.applyBestMove(solution)) {
+                break;
+            }
+            // solo cambian las dos rutas del movimiento
+            this.bestA.load(solution, this.bestA.getRoute());
+            this.bestB.load(solution, this.bestB.getRoute());
+            improved = true;
+        }
+        return improved;
+    }
+
+    /**
+     * Método que evalúa todos los intercambios de cadenas entre dos rutas. La cadena de a empieza en la
+     * posición i y tiene lengthA clientes; la de b empieza en j y tiene lengthB. Una cadena vacía indica
+     * la posición de inserción de la otra (delante del nodo i o j).
+     *
+     * @param a Primera ruta.
+     * @param b Segunda ruta.
+     */
+    private void crossExchange(TOPTWRouteSegments a, TOPTWRouteSegments b) {
+        double current = a.getEndTime() + b.getEndTime();
+        for(int i = 1; i <= a.getSize() + 1; i++) {
+            for(int lengthA = 0; lengthA <= this.maxChainLength && i + lengthA - 1 <= a.getSize(); lengthA++) {
+                if(lengthA > 0) {
+                    int node = a.getNode(i + lengthA - 1);
+                    // las cadenas más largas también contienen el cliente lejano o infactible
+                    if(!b.isNear(this.problem.getX(node), this.problem.getY(node), this.pruningMargin)
+                            || !a.getChain(i, lengthA).isFeasible()) {
+                        break;
+                    }
+                }
+                // a termina como pronto sin la cadena, y b como pronto en la cota de getMinEndTime
+                double minEndA = a.getRemovalEndTime(i, lengthA, this.bound);
+                if(!this.exceedsBestGain(current, current - minEndA - this.getMinEndTime(b, a, i, lengthA))) {
+                    continue;
+                }
+                for(int j = 1; j <= b.getSize() + 1; j++) {
+                    for(int lengthB = 0; lengthB <= this.maxChainLength && j + lengthB - 1 <= b.getSize(); lengthB++) {
+                        if(lengthB > 0) {
+                            int node = b.getNode(j + lengthB - 1);
+                            if(!a.isNear(this.problem.getX(node), this.problem.getY(node), this.pruningMargin)
+                                    || !b.getChain(j, lengthB).isFeasible()) {
+                                break;
+                            }
+                        }
+                        if(lengthA == 0 && lengthB == 0) {
+                            continue;
+                        }
+                        if(!this.join(this.routeA, a, i, lengthA, b, j, lengthB)) {
+                            continue;
+                        }
+                        if(!this.join(this.routeB, b, j, lengthB, a, i, lengthA)) {
+                            continue;
+                        }
+                        double gain = current - this.routeA.getEndTime() - this.routeB.getEndTime();
+                        if(gain > this.bestGain) {
+                            this.bestGain = gain;
+                            this.bestA = a;
+                            this.bestB = b;
+                            this.bestI = i;
+                            this.bestLengthA = lengthA;
+                            this.bestJ = j;
+                            this.bestLengthB = lengthB;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Método que indica si algún intercambio de cadenas entre dos rutas puede superar la ganancia del mejor
+     * movimiento encontrado: cada ruta termina como pronto en su menor tiempo de finalización sin una cadena.
+     *
+     * @param a Primera ruta.
+     * @param b Segunda ruta.
+     * @return false si ningún movimiento entre las rutas puede mejorar el mejor movimiento, true en otro caso.
+     */
+    private boolean canImprove(TOPTWRouteSegments a, TOPTWRouteSegments b) {
+        double current = a.getEndTime() + b.getEndTime();
+        return this.exceedsBestGain(current, current - a.getMinRemovalEndTime() - b.getMinRemovalEndTime());
+    }
+
+    /**
+     * Método que calcula una cota inferior del tiempo de finalización de la ruta target después de recibir
+     * la cadena (i, lengthI) de la ruta source en lugar de una de sus cadenas: no termina antes que sin esa
+     * cadena suya ni antes que una ruta que solo visite la cadena recibida.
+     *
+     * @param target Ruta que recibe la cadena.
+     * @param source Ruta de la que procede la cadena.
+     * @param i Posición de la cadena.
+     * @param lengthI Longitud de la cadena (0 si target no recibe ningún cliente).
+     * @return Cota inferior del tiempo de finalización, o infinito si la cadena no cabe en target.
+     */
+    private double getMinEndTime(TOPTWRouteSegments target, TOPTWRouteSegments source, int i, int lengthI) {
+        double minEndTime = target.getMinRemovalEndTime();
+        if(lengthI > 0) {
+            this.bound.concat(this.problem, target.getNodeSegment(0), source.getChain(i, lengthI));
+            this.bound.concat(this.problem, this.bound, target.getNodeSegment(target.getSize() + 1));
+            minEndTime = Math.max(minEndTime, this.bound.isFeasible() ? this.bound.getEndTime() : Double.POSITIVE_INFINITY);
+        }
+        return minEndTime;
+    }
+
+    /**
+     * Método que compara una cota superior de la ganancia con la del mejor movimiento, con una tolerancia
+     * relativa que cubre el redondeo de las distancias, en especial con la matriz en precisión simple.
+     *
+     * @param current Suma de los tiempos de finalización de las dos rutas.
+     * @param maxGain Cota superior de la ganancia.
+     * @return true si la cota puede superar la mejor ganancia, false en caso contrario.
+     */
+    private boolean exceedsBestGain(double current, double maxGain) {
+        return maxGain + BOUND_TOLERANCE * current > this.bestGain;
+    }
+
+    /**
+     * Método que guarda en result la ruta target con su cadena (i, lengthI) sustituida por la cadena
+     * (j, lengthJ) de la ruta source. Los arcos nuevos incompatibles con las ventanas temporales se
+     * descartan antes de concatenar los resúmenes.
+     *
+     * @param result Resumen de la ruta resultante.
+     * @param target Ruta que recibe la cadena.
+     * @param i Posición de la cadena sustituida.
+     * @param lengthI Longitud de la cadena sustituida.
+     * @param source Ruta de la que procede la cadena.
+     * @param j Posición de la cadena insertada.
+     * @param lengthJ Longitud de la cadena insertada.
+     * @return true si la ruta resultante es factible, false en caso contrario.
+     */
+    private boolean join(TOPTWSegment result, TOPTWRouteSegments target, int i, int lengthI, TOPTWRouteSegments source, int j, int lengthJ) {
+        int pre = target.getNode(i - 1);
+        int suc = target.getNode(i + lengthI);
+        if(lengthJ > 0) {
+            if(!this.problem.isCompatible(pre, source.getNode(j)) || !this.problem.isCompatible(source.getNode(j + lengthJ - 1), suc)) {
+                return false;
+            }
+            result.concat(this.problem, target.getPrefix(i - 1), source.getChain(j, lengthJ));
+            if(!result.isFeasible()) {
+                return false;
+            }
+            result.concat(this.problem, result, target.getSuffix(i + lengthI));
+        } else {
+            if(!this.problem.isCompatible(pre, suc)) {
+                return false;
+            }
+            result.concat(this.problem, target.getPrefix(i - 1), target.getSuffix(i + lengthI));
+        }
+        return result.isFeasible();
+    }
+
+    /**
+     * Método que aplica a la solución el mejor movimiento encontrado. Si por redondeo alguna de las rutas
+     * resultantes no fuese factible, se restauran las dos rutas originales.
+     *
+     * @param solution Solución.
+     * @return true si se ha aplicado el movimiento, false en caso contrario.
+     */
+    private boolean applyBestMove(TOPTWSolution solution) {
+        TOPTWRouteSegments a = this.bestA;
+        TOPTWRouteSegments b = this.bestB;
+        this.setExchangedRoute(solution, a, this.bestI, this.bestLengthA, b, this.bestJ, this.bestLengthB);
+        this.setExchangedRoute(solution, b, this.bestJ, this.bestLengthB, a, this.bestI, this.bestLengthA);
+        if(!solution.isFeasibleRoute(a.getRoute()) || !solution.isFeasibleRoute(b.getRoute())) {
+            System.arraycopy(a.getSequence(), 1, this.moved, 0, a.getSize());
+            solution.setRoute(a.getRoute(), this.moved, a.getSize());
+            System.arraycopy(b.getSequence(), 1, this.moved, 0, b.getSize());
+            solution.setRoute(b.getRoute(), this.moved, b.getSize());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Método que escribe en la solución la ruta target con su cadena (i, lengthI) sustituida por la cadena
+     * (j, lengthJ) de la ruta source, a partir de las secuencias cargadas antes del movimiento.
+     *
+     * @param solution Solución.
+     * @param target Ruta que recibe la cadena.
+     * @param i Posición de la cadena sustituida.
+     * @param lengthI Longitud de la cadena sustituida.
+     * @param source Ruta de la que procede la cadena.
+     * @param j Posición de la cadena insertada.
+     * @param lengthJ Longitud de la cadena insertada.
+     */
+    private void setExchangedRoute(TOPTWSolution solution, TOPTWRouteSegments target, int i, int lengthI, TOPTWRouteSegments source, int j, int lengthJ) {
+        int n = 0;
+        for(int p = 1; p < i; p++) { this.moved[n++] = target.getNode(p); }
+        for(int p = j; p < j + lengthJ; p++) { this.moved[n++] = source.getNode(p); }
+        for(int p = i + lengthI; p <= target.getSize(); p++) { this.moved[n++] = target.getNode(p); }
+        solution.setRoute(target.getRoute(), this.moved, n);
+    }
+
+    /**
+     * Método que devuelve la longitud máxima de las cadenas intercambiadas.
+     *
+     * @return Longitud máxima de las cadenas.
+     */
+    public int getMaxChainLength() {
+        return this.maxChainLength;
+    }
+
+    /**
+     * Método que devuelve el margen espacial y temporal de la poda de pares de rutas.
+     *
+     * @return Margen de poda.
+     */
+    public double getPruningMargin() {
+        return this.pruningMargin;
+    }
+
+    /**
+     * Método que establece el margen espacial y temporal de la poda de pares de rutas.
+     *
+     * @param pruningMargin Margen de poda (infinito para evaluar todos los pares).
+     */
+    public void setPruningMargin(double pruningMargin) {
+        this.pruningMargin = pruningMargin;
+    }
+}
@@ -0,0 +1,290 @@
+package top;
+
+/**
+ * Clase que implementa la búsqueda local del algoritmo GRASP para el problema TOPTW.
+ * Dentro de cada ruta se aplican movimientos 2-opt (inversión de un tramo), relocate (mover un cliente)
+ * y or-opt (mover una cadena de clientes consecutivos) para reducir el tiempo de finalización de la ruta
+ * y dejar holgura para nuevas inserciones. Cada movimiento se evalúa en tiempo constante concatenando
+ * los resúmenes de prefijos y sufijos de la ruta ({@link TOPTWSegment}), sin volver a simular la ruta.
+ * Si la búsqueda entre rutas está activada ({@link TOPTWInterRouteSearch}), se alterna con la búsqueda
+ * dentro de cada ruta, y si la búsqueda de inserciones está activada ({@link TOPTWInsertionSearch}) se
+ * aprovecha la holgura obtenida para visitar POIs que la construcción dejó fuera. Las tres fases se repiten
+ * hasta que ninguna mejora la solución.
+ */
+public class TOPTWLocalSearch {
+    /**
+     * Mejora mínima del tiempo de finalización para aceptar un movimiento.
+     */
+    public static final double EPSILON = 1e-7;
+
+    private TOPTW problem;
+    private int orOptLength;
+    private TOPTWRouteSegments current;
+    private int[] moved;
+    private TOPTWSegment middle;
+    private TOPTWSegment chain;
+    private TOPTWSegment route;
+    private TOPTWInterRouteSearch interRouteSearch;
+    private TOPTWInsertionSearch insertionSearch;
+
+    // mejor movimiento encontrado en la pasada actual
+    private int bestMove;
+    private int bestFrom;
+    private int bestTo;
+    private int bestLength;
+    private double bestEndTime;
+
+    private static final int NO_MOVE = 0;
+    private static final int TWO_OPT = 1;
+    private static final int MOVE_CHAIN = 2;
+
+    /**
+     * Constructor de la clase TOPTWLocalSearch.
+     *
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWLocalSearch(TOPTW problem) {
+        this.problem = problem;
+        this.orOptLength = 3;
+        this.current = new TOPTWRouteSegments(problem, 0);
+        this.moved = new int[problem.getPOIs() + 2];
+        this.middle = new TOPTWSegment();
+        this.chain = new TOPTWSegment();
+        this.route = new TOPTWSegment();
+        this.interRouteSearch = new TOPTWInterRouteSearch(problem);
+        this.insertionSearch = new TOPTWInsertionSearch(problem);
+    }
+
+    /**
+     * Método que aplica la búsqueda local a todas las rutas de una solución hasta alcanzar un óptimo local.
+     *
+     * @param solution Solución a mejorar.
+     * @return true si se ha modificado la solución, false en caso contrario.
+     */
+    public boolean improve(TOPTWSolution solution) {
+        boolean improved = false;
+        while(true) {
+            for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                improved |= this.improveRoute(solution, k);
+            }
+            boolean changed = false;
+            if(this.interRouteSearch != null) {
+                changed |= this.interRouteSearch.improve(solution);
+            }
+            if(this.insertionSearch != null) {
+                changed |= this.insertionSearch.improve(solution);
+            }
+            if(!changed) {
+                break;
+            }
+            improved = true;
+        }
+        return improved;
+    }
+
+    /**
+     * Método que aplica los movimientos intra-ruta a una ruta hasta que ninguno mejora su tiempo de finalización.
+     * En cada pasada se aplica el mejor movimiento de todos los vecindarios.
+     *
+     * @param solution Solución a mejorar.
+     * @param k Índice de la ruta.
+     * @return true si se ha mejorado la ruta, false en caso contrario.
+     */
+    public boolean improveRoute(TOPTWSolution solution, int k) {
+        boolean improved = false;
+        while(true) {
+            int size = this.current.load(solution, k);
+            if(size < 2) {
+                break;
+            }
+            this.bestMove = NO_MOVE;
+            this.bestEndTime = this.current.getEndTime() - EPSILON;
+            this.twoOpt(size);
+            this.moveChains(size);
+            if(this.bestMove == NO_MOVE || !this.applyBestMove(solution, k, size)) {
+                break;
+            }
+            improved = true;
+        }
+        return improved;
+    }
+
+    /**
+     * Método que evalúa todas las inversiones de tramos (2-opt) de la ruta cargada. El tramo invertido
+     * se amplía de uno en uno, por lo que cada movimiento se evalúa en tiempo constante.
+     *
+     * @param size Número de clientes de la ruta.
+     */
+    private void twoOpt(int size) {
+        for(int i = 1; i < size; i++) {
+            this.middle.copyFrom(this.current.getNodeSegment(i));
+            for(int j = i + 1; j <= size; j++) {
+                // tramo invertido: sequence[j], sequence[j-1], ..., sequence[i]
+                this.middle.concat(this.problem, this.current.getNodeSegment(j), this.middle);
+                if(!this.middle.isFeasible()) {
+                    break;
+                }
+                this.route.concat(this.problem, this.current.getPrefix(i - 1), this.middle);
+                this.route.concat(this.problem, this.route, this.current.getSuffix(j + 1));
+                this.consider(TWO_OPT, i, j, 0);
+            }
+        }
+    }
+
+    /**
+     * Método que evalúa todos los movimientos de cadenas de clientes consecutivos a otra posición de la ruta:
+     * relocate para cadenas de un cliente y or-opt para cadenas más largas.
+     *
+     * @param size Número de clientes de la ruta.
+     */
+    private void moveChains(int size) {
+        for(int length = 1; length <= this.orOptLength && length < size; length++) {
+            for(int i = 1; i + length - 1 <= size; i++) {
+                int end = i + length - 1;
+                this.chain.copyFrom(this.current.getNodeSegment(i));
+                for(int c = i + 1; c <= end; c++) {
+                    this.chain.concat(this.problem, this.chain, this.current.getNodeSegment(c));
+                }
+                if(!this.chain.isFeasible()) {
+                    continue;
+                }
+                // hacia atrás: la cadena pasa a ir tras sequence[p], con p < i - 1
+                this.middle.copyFrom(this.current.getNodeSegment(i - 1));
+                for(int p = i - 2; p >= 0; p--) {
+                    this.route.concat(this.problem, this.current.getPrefix(p), this.chain);
+                    this.route.concat(this.problem, this.route, this.middle);
+                    this.route.concat(this.problem, this.route, this.current.getSuffix(end + 1));
+                    this.consider(MOVE_CHAIN, i, p, length);
+                    if(p > 0) {
+                        this.middle.concat(this.problem, this.current.getNodeSegment(p), this.middle);
+                        if(!this.middle.isFeasible()) {
+                            break;
+                        }
+                    }
+                }
+                // hacia delante: la cadena pasa a ir tras sequence[p], con p > end
+                this.middle.copyFrom(this.current.getNodeSegment(end + 1));
+                for(int p = end + 1; p <= size; p++) {
+                    if(p > end + 1) {
+                        this.middle.concat(this.problem, this.middle, this.current.getNodeSegment(p));
+                        if(!this.middle.isFeasible()) {
+                            break;
+                        }
+                    }
+                    this.route.concat(this.problem, this.current.getPrefix(i - 1), this.middle);
+                    this.route.concat(this.problem, this.route, this.chain);
+                    this.route.concat(this.problem, this.route, this.current.getSuffix(p + 1));
+                    this.consider(MOVE_CHAIN, i, p, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Método que registra el movimiento evaluado en route si es factible y mejora al mejor encontrado.
+     *
+     * @param move Tipo de movimiento.
+     * @param from Primera posición del movimiento.
+     * @param to Segunda posición del movimiento.
+     * @param length Longitud de la cadena movida.
+     */
+    private void consider(int move, int from, int to, int length) {
+        if(this.route.isFeasible() && this.route.getEndTime() < this.bestEndTime) {
+            this.bestEndTime = this.route.getEndTime();
+            this.bestMove = move;
+            this.bestFrom = from;
+            this.bestTo = to;
+            this.bestLength = length;
+        }
+    }
+
+    /**
+     * Método que aplica a la solución el mejor movimiento encontrado. Si por redondeo la ruta resultante
+     * no fuese factible, se restaura la ruta original.
+     *
+     * @param solution Solución.
+     * @param k Índice de la ruta.
+     * @param size Número de clientes de la ruta.
+     * @return true si se ha aplicado el movimiento, false en caso contrario.
+     */
+    private boolean applyBestMove(TOPTWSolution solution, int k, int size) {
+        int n = 0;
+        if(this.bestMove == TWO_OPT) {
+            for(int p = 1; p < this.bestFrom; p++) { this.moved[n++] = this.current.getNode(p); }
+            for(int p = this.bestTo; p >= this.bestFrom; p--) { this.moved[n++] = this.current.getNode(p); }
+            for(int p = this.bestTo + 1; p <= size; p++) { this.moved[n++] = this.current.getNode(p); }
+        } else {
+            int i = this.bestFrom;
+            int end = i + this.bestLength - 1;
+            for(int p = 0; p <= size; p++) {
+                if(p > 0 && (p < i || p > end)) {
+                    this.moved[n++] = this.current.getNode(p);
+                }
+                if(p == this.bestTo) {
+                    for(int c = i; c <= end; c++) { this.moved[n++] = this.current.getNode(c); }
+                }
+            }
+        }
+        solution.setRoute(k, this.moved, n);
+        if(!solution.isFeasibleRoute(k)) {
+            System.arraycopy(this.current.getSequence(), 1, this.moved, 0, size);
+            solution.setRoute(k, this.moved, size);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Método que devuelve la longitud máxima de las cadenas movidas por or-opt.
+     *
+     * @return Longitud máxima de las cadenas.
+     */
+    public int getOrOptLength() {
+        return this.orOptLength;
+    }
+
+    /**
+     * Método que establece la longitud máxima de las cadenas movidas por or-opt (1 equivale a solo relocate).
+     *
+     * @param orOptLength Longitud máxima de las cadenas.
+     */
+    public void setOrOptLength(int orOptLength) {
+        this.orOptLength = orOptLength;
+    }
+
+    /**
+     * Método que devuelve la búsqueda entre rutas.
+     *
+     * @return Búsqueda entre rutas, o null si está desactivada.
+     */
+    public TOPTWInterRouteSearch getInterRouteSearch() {
+        return this.interRouteSearch;
+    }
+
+    /**
+     * Método que establece la búsqueda entre rutas.
+     *
+     * @param interRouteSearch Búsqueda entre rutas, o null para aplicar solo movimientos dentro de cada ruta.
+     */
+    public void setInterRouteSearch(TOPTWInterRouteSearch interRouteSearch) {
+        this.interRouteSearch = interRouteSearch;
+    }
+
+    /**
+     * Método que devuelve la búsqueda de inserciones y sustituciones de POIs sin visitar.
+     *
+     * @return Búsqueda de inserciones, o null si está desactivada.
+     */
+    public TOPTWInsertionSearch getInsertionSearch() {
+        return this.insertionSearch;
+    }
+
+    /**
+     * Método que establece la búsqueda de inserciones y sustituciones de POIs sin visitar.
+     *
+     * @param insertionSearch Búsqueda de inserciones, o null para no modificar los POIs visitados.
+     */
+    public void setInsertionSearch(TOPTWInsertionSearch insertionSearch) {
+        this.insertionSearch = insertionSearch;
+    }
+}
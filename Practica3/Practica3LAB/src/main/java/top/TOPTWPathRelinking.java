@@ -0,0 +1,121 @@
+package top;
+
+/**
+ * Clase que implementa el path relinking entre dos soluciones del conjunto élite.
+ * Partiendo de la solución inicial, en cada paso se inserta el POI de mayor score que visita la solución guía
+ * y todavía no visita la actual, en su mejor posición factible; si ninguno cabe, se elimina el POI de menor
+ * score que la solución guía no visita. La mejor solución intermedia del camino se mejora con la búsqueda local.
+ * Cada instancia tiene sus propias soluciones de trabajo ({@link TOPTWSolutionPool}) y su propia búsqueda
+ * local, por lo que no debe compartirse entre hilos.
+ */
+public class TOPTWPathRelinking {
+    private TOPTW problem;
+    private TOPTWSolutionPool solutions;
+    private TOPTWLocalSearch localSearch;
+
+    /**
+     * Constructor de la clase TOPTWPathRelinking.
+     *
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWPathRelinking(TOPTW problem) {
+        this.problem = problem;
+        this.solutions = new TOPTWSolutionPool(problem);
+        this.localSearch = new TOPTWLocalSearch(problem);
+    }
+
+    /**
+     * Método que recorre el camino entre dos soluciones élite y devuelve su mejor solución intermedia tras
+     * aplicarle la búsqueda local, si la hay.
+     *
+     * @param initial Solución inicial.
+     * @param guiding Solución guía.
+     * @return Mejor solución intermedia mejorada, o null si el camino no tiene soluciones intermedias. Se
+     * sobrescribe en la siguiente llamada.
+     */
+    public TOPTWSolution relink(TOPTWEliteSolution initial, TOPTWEliteSolution guiding) {
+        TOPTWSolution current = this.solutions.getIncumbent();
+        initial.copyTo(current);
+        boolean[] inGuiding = guiding.getVisited(this.problem.getPOIs());
+        boolean[] inInitial = initial.getVisited(this.problem.getPOIs());
+        // POIs que hay que insertar (solo en la guía) y que se pueden eliminar (solo en la inicial)
+        boolean[] toInsert = new boolean[inGuiding.length];
+        boolean[] toRemove = new boolean[inGuiding.length];
+        for(int node = 1; node < inGuiding.length; node++) {
+            toInsert[node] = inGuiding[node] && !inInitial[node];
+            toRemove[node] = inInitial[node] && !inGuiding[node];
+        }
+        double score = initial.getFitness();
+        this.solutions.clearBest();
+        while(true) {
+            int bestNode = -1;
+            int bestPre = -1;
+            double bestNodeScore = Double.NEGATIVE_INFINITY;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for(int node = 1; node < toInsert.length; node++) {
+                if(!toInsert[node] || this.problem.getScore(node) < bestNodeScore) {
+                    continue;
+                }
+                for(int k = 0; k < current.getCreatedRoutes(); k++) {
+                    int depot = current.getIndexRoute(k);
+                    int pre = depot;
+                    do {
+                        double cost = current.getInsertionEndTime(node, pre);
+                        if(cost < Double.POSITIVE_INFINITY && (this.problem.getScore(node) > bestNodeScore || cost < bestCost)) {
+                            bestNodeScore = this.problem.getScore(node);
+                            bestCost = cost;
+                            bestNode = node;
+                            bestPre = pre;
+                        }
+                        pre = current.getSuccessor(pre);
+                    } while(pre != depot);
+                }
+            }
+            if(bestNode != -1) {
+                current.insertAfter(bestNode, bestPre);
+                toInsert[bestNode] = false;
+                score += this.problem.getScore(bestNode);
+            } else {
+                int removed = -1;
+                for(int node = 1; node < toRemove.length; node++) {
+                    if(toRemove[node] && (removed == -1 || this.problem.getScore(node) < this.problem.getScore(removed))) {
+                        removed = node;
+                    }
+                }
+                if(removed == -1) {
+                    break;
+                }
+                current.remove(removed);
+                toRemove[removed] = false;
+                score -= this.problem.getScore(removed);
+            }
+            this.solutions.updateBest(current, score);
+        }
+        if(!this.solutions.hasBest()) {
+            return null;
+        }
+        TOPTWSolution best = this.solutions.getBest();
+        if(this.localSearch != null) {
+            this.localSearch.improve(best);
+        }
+        return best;
+    }
+
+    /**
+     * Método que devuelve la búsqueda local aplicada a las soluciones intermedias.
+     *
+     * @return Búsqueda local, o null si no se aplica.
+     */
+    public TOPTWLocalSearch getLocalSearch() {
+        return this.localSearch;
+    }
+
+    /**
+     * Método que establece la búsqueda local aplicada a las soluciones intermedias.
+     *
+     * @param localSearch Búsqueda local, o null para devolver la mejor solución intermedia sin mejorarla.
+     */
+    public void setLocalSearch(TOPTWLocalSearch localSearch) {
+        this.localSearch = localSearch;
+    }
+}
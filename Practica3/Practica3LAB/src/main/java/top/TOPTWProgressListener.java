@@ -0,0 +1,18 @@
+package top;
+
+/**
+ * Interfaz que recibe el progreso de una ejecución del algoritmo GRASP a intervalos regulares.
+ * En el GRASP paralelo las llamadas se hacen desde los hilos de trabajo, pero nunca dos a la vez.
+ */
+@FunctionalInterface
+public interface TOPTWProgressListener {
+
+    /**
+     * Método que recibe el progreso de la ejecución.
+     *
+     * @param iterations Iteraciones realizadas entre todos los hilos.
+     * @param bestFitness Mejor fitness encontrado hasta el momento.
+     * @param elapsedMillis Milisegundos transcurridos desde el inicio de la ejecución.
+     */
+    void onProgress(int iterations, double bestFitness, long elapsedMillis);
+}
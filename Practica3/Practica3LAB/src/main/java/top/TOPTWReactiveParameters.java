@@ -0,0 +1,201 @@
+package top;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Clase que implementa la elección adaptativa de parámetros del GRASP reactivo.
+ * Cada configuración combina un tamaño de la lista restringida de candidatos, una estrategia de selección y
+ * un valor de corte alfa. En cada iteración se sortea una configuración según su probabilidad, y cada period
+ * iteraciones las probabilidades se recalculan a partir del fitness medio obtenido con cada configuración:
+ * q_i = (media_i / mejor)^delta y p_i = q_i / suma(q). Las configuraciones aún no usadas reciben q = 1 para
+ * que se sigan explorando.
+ */
+public class TOPTWReactiveParameters {
+    private final int[] rclSizes;
+    private final int[] selections;
+    private final double[] alphas;
+    private final int period;
+    private final double delta;
+    private final double[] probability;
+    private final double[] fitnessSum;
+    private final int[] count;
+    private double bestFitness;
+    private int recorded;
+
+    /**
+     * Constructor de la clase TOPTWReactiveParameters. Las configuraciones empiezan equiprobables.
+     *
+     * @param rclSizes Tamaño de la lista restringida de candidatos de cada configuración.
+     * @param selections Estrategia de selección de cada configuración (constantes de {@link TOPTWGRASP}).
+     * @param alphas Valor de corte alfa de cada configuración.
+     * @param period Número de iteraciones entre dos actualizaciones de las probabilidades.
+     * @param delta Exponente que acentúa las diferencias entre configuraciones.
+     */
+    public TOPTWReactiveParameters(int[] rclSizes, int[] selections, double[] alphas, int period, double delta) {
+        if(rclSizes.length == 0 || rclSizes.length != selections.length || rclSizes.length != alphas.length) {
+            throw new IllegalArgumentException("Las configuraciones deben tener el mismo número de tamaños, selecciones y alfas");
+        }
+        this.rclSizes = rclSizes.clone();
+        this.selections = selections.clone();
+        this.alphas = alphas.clone();
+        this.period = period;
+        this.delta = delta;
+        this.probability = new double[rclSizes.length];
+        this.fitnessSum = new double[rclSizes.length];
+        this.count = new int[rclSizes.length];
+        this.reset();
+    }
+
+    /**
+     * Método que crea las configuraciones por defecto: tamaños 3, 5 y 7 combinados con la selección
+     * aleatoria, la fuzzy por mejor valor y la fuzzy por corte alfa con alfa 0.6 y 0.8, actualizando las
+     * probabilidades cada 100 iteraciones con delta 10.
+     *
+     * @return Parámetros reactivos por defecto.
+     */
+    public static TOPTWReactiveParameters defaults() {
+        int[] sizes = {3, 5, 7};
+        int[] strategies = {TOPTWGRASP.RANDOM_SELECTION, TOPTWGRASP.FUZZY_BEST_SELECTION, TOPTWGRASP.FUZZY_ALPHA_CUT_SELECTION, TOPTWGRASP.FUZZY_ALPHA_CUT_SELECTION};
+        double[] cuts = {1.0, 1.0, 0.6, 0.8};
+        int configurations = sizes.length * strategies.length;
+        int[] rclSizes = new int[configurations];
+        int[] selections = new int[configurations];
+        double[] alphas = new double[configurations];
+        int c = 0;
+        for(int size : sizes) {
+            for(int s = 0; s < strategies.length; s++) {
+                rclSizes[c] = size;
+                selections[c] = strategies[s];
+                alphas[c] = cuts[s];
+                c++;
+            }
+        }
+        return new TOPTWReactiveParameters(rclSizes, selections, alphas, 100, 10.0);
+    }
+
+    /**
+     * Método que crea unos parámetros con las mismas configuraciones y el estado inicial, para otro hilo.
+     *
+     * @return Copia sin historial.
+     */
+    public TOPTWReactiveParameters copy() {
+        return new TOPTWReactiveParameters(this.rclSizes, this.selections, this.alphas, this.period, this.delta);
+    }
+
+    /**
+     * Método que olvida el historial y vuelve a hacer equiprobables todas las configuraciones.
+     */
+    public void reset() {
+        Arrays.fill(this.probability, 1.0 / this.probability.length);
+        Arrays.fill(this.fitnessSum, 0.0);
+        Arrays.fill(this.count, 0);
+        this.bestFitness = 0.0;
+        this.recorded = 0;
+    }
+
+    /**
+     * Método que sortea una configuración según las probabilidades actuales.
+     *
+     * @param random Generador de números aleatorios.
+     * @return Índice de la configuración.
+     */
+    public int sample(RandomGenerator random) {
+        double r = random.nextDouble();
+        double cumulative = 0.0;
+        for(int c = 0; c < this.probability.length - 1; c++) {
+            cumulative += this.probability[c];
+            if(r < cumulative) {
+                return c;
+            }
+        }
+        return this.probability.length - 1;
+    }
+
+    /**
+     * Método que registra el fitness obtenido con una configuración y, cada period registros, recalcula
+     * las probabilidades.
+     *
+     * @param configuration Índice de la configuración.
+     * @param fitness Fitness obtenido.
+     */
+    public void record(int configuration, double fitness) {
+        this.fitnessSum[configuration] += fitness;
+        this.count[configuration]++;
+        this.bestFitness = Math.max(this.bestFitness, fitness);
+        this.recorded++;
+        if(this.recorded % this.period == 0) {
+            this.updateProbabilities();
+        }
+    }
+
+    /**
+     * Método que recalcula las probabilidades a partir del fitness medio de cada configuración.
+     */
+    private void updateProbabilities() {
+        if(this.bestFitness <= 0.0) {
+            return;
+        }
+        double total = 0.0;
+        for(int c = 0; c < this.probability.length; c++) {
+            double quality = 1.0;
+            if(this.count[c] > 0) {
+                quality = Math.pow(this.fitnessSum[c] / this.count[c] / this.bestFitness, this.delta);
+            }
+            this.probability[c] = quality;
+            total += quality;
+        }
+        for(int c = 0; c < this.probability.length; c++) {
+            this.probability[c] /= total;
+        }
+    }
+
+    /**
+     * Método que devuelve el número de configuraciones.
+     *
+     * @return Número de configuraciones.
+     */
+    public int size() {
+        return this.probability.length;
+    }
+
+    /**
+     * Método que devuelve el tamaño de la lista restringida de candidatos de una configuración.
+     *
+     * @param configuration Índice de la configuración.
+     * @return Tamaño de la lista restringida de candidatos.
+     */
+    public int getRclSize(int configuration) {
+        return this.rclSizes[configuration];
+    }
+
+    /**
+     * Método que devuelve la estrategia de selección de una configuración.
+     *
+     * @param configuration Índice de la configuración.
+     * @return Estrategia de selección.
+     */
+    public int getSelection(int configuration) {
+        return this.selections[configuration];
+    }
+
+    /**
+     * Método que devuelve el valor de corte alfa de una configuración.
+     *
+     * @param configuration Índice de la configuración.
+     * @return Valor de corte alfa.
+     */
+    public double getAlpha(int configuration) {
+        return this.alphas[configuration];
+    }
+
+    /**
+     * Método que devuelve la probabilidad actual de una configuración.
+     *
+     * @param configuration Índice de la configuración.
+     * @return Probabilidad de la configuración.
+     */
+    public double getProbability(int configuration) {
+        return this.probability[configuration];
+    }
+}
@@ -1,68 +1,286 @@
 package top;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-
-import es.ull.esit.utilities.ExpositoUtilities;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Clase que implementa la lectura de un problema TOPTW.
+ * El fichero se proyecta en memoria y se recorre byte a byte: los campos se separan por espacios o
+ * tabuladores y los números se convierten sin crear cadenas intermedias. Los errores de formato se
+ * indican con una IllegalArgumentException que incluye el fichero y el número de línea, y los de
+ * entrada/salida con una UncheckedIOException.
  */
 public class TOPTWReader {
     /**
-     * Método que lee un problema TOPTW de un fichero.
+     * Potencias de diez que se representan de forma exacta en doble precisión.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Método que lee un problema TOPTW de un fichero, con la matriz de distancias completa en doble precisión.
      *
      * @param filePath Ruta del fichero.
      * @return Problema TOPTW leído.
      */
     public static TOPTW readProblem(String filePath) {
-        TOPTW problem = null;
-        BufferedReader reader = null;
-        try {
-            File instaceFile = new File(filePath);
-            reader = new BufferedReader(new FileReader(instaceFile));
-            String line = reader.readLine();
-            line = ExpositoUtilities.simplifyString(line);
-            String[] parts =line.split(" ");
-            problem = new TOPTW(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]));
-            line = reader.readLine();
-            line = null; parts = null;
-            for (int i = 0; i < problem.getPOIs()+1; i++) {
-                line = reader.readLine();
-                line = ExpositoUtilities.simplifyString(line);
-                parts = line.split(" ");
-                problem.setX(i, Double.parseDouble(parts[1]));
-                problem.setY(i, Double.parseDouble(parts[2]));
-                problem.setServiceTime(i, Double.parseDouble(parts[3]));
-                problem.setScore(i, Double.parseDouble(parts[4]));
-                if(i==0) {
-                    problem.setReadyTime(i, Double.parseDouble(parts[7]));
-                    problem.setDueTime(i, Double.parseDouble(parts[8]));
+        return TOPTWReader.readProblem(filePath, TOPTWDistanceMatrix.Storage.DOUBLE);
+    }
+
+    /**
+     * Método que lee un problema TOPTW de un fichero.
+     *
+     * @param filePath Ruta del fichero.
+     * @param storage Tipo de almacenamiento de la matriz de distancias.
+     * @return Problema TOPTW leído.
+     * @throws IllegalArgumentException Si el fichero no tiene el formato esperado.
+     * @throws UncheckedIOException Si no se puede leer el fichero.
+     */
+    public static TOPTW readProblem(String filePath, TOPTWDistanceMatrix.Storage storage) {
+        Path path = Paths.get(filePath);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(filePath + ": el fichero es demasiado grande (" + size + " bytes)");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se puede leer el fichero " + filePath, e);
+        }
+
+        Tokenizer tokenizer = new Tokenizer(filePath, buffer);
+        // cabecera: tipo, número de rutas y número de POIs
+        tokenizer.skipToken();
+        int routes = tokenizer.nextInt();
+        int nodes = tokenizer.nextInt();
+        TOPTW problem = new TOPTW(nodes, routes, storage);
+        tokenizer.nextLine();
+        tokenizer.nextLine();
+        for (int i = 0; i < problem.getPOIs()+1; i++) {
+            tokenizer.skipToken();
+            problem.setX(i, tokenizer.nextDouble());
+            problem.setY(i, tokenizer.nextDouble());
+            problem.setServiceTime(i, tokenizer.nextDouble());
+            problem.setScore(i, tokenizer.nextDouble());
+            // campo f, número de elementos a de la lista y la lista, que no se usan
+            tokenizer.skipToken();
+            tokenizer.skipTokens(tokenizer.nextInt());
+            problem.setReadyTime(i, tokenizer.nextDouble());
+            problem.setDueTime(i, tokenizer.nextDouble());
+            tokenizer.nextLine();
+        }
+        problem.calculateDistanceMatrix();
+        problem.calculateNeighborLists(TOPTW.DEFAULT_NEIGHBORS);
+        problem.calculateScoreStatistics();
+        problem.setMaxTimePerRoute(problem.getDueTime(0));
+        problem.calculateCompatibility();
+        return problem;
+    }
+
+    /**
+     * Clase que separa en campos el contenido de un fichero, línea a línea. Los métodos que leen un campo
+     * no pasan a la línea siguiente: si la línea actual no tiene más campos se produce un error.
+     */
+    private static final class Tokenizer {
+        private final String filePath;
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private int position;
+        private int line;
+
+        Tokenizer(String filePath, MappedByteBuffer buffer) {
+            this.filePath = filePath;
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+            this.position = 0;
+            this.line = 1;
+        }
+
+        /**
+         * Método que salta el resto de la línea actual y se sitúa al principio de la siguiente, o al final
+         * del fichero si es la última.
+         */
+        void nextLine() {
+            while (this.position < this.limit) {
+                if (this.buffer.get(this.position++) == '\n') {
+                    this.line++;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Método que salta un campo de la línea actual.
+         */
+        void skipToken() {
+            this.startToken();
+            while (this.position < this.limit && !isSeparator(this.buffer.get(this.position))) {
+                this.position++;
+            }
+        }
+
+        /**
+         * Método que salta varios campos de la línea actual.
+         *
+         * @param count Número de campos.
+         */
+        void skipTokens(int count) {
+            for (int i = 0; i < count; i++) {
+                this.skipToken();
+            }
+        }
+
+        /**
+         * Método que lee un campo entero de la línea actual.
+         *
+         * @return Valor del campo.
+         */
+        int nextInt() {
+            int start = this.startToken();
+            boolean negative = this.buffer.get(this.position) == '-';
+            if (negative || this.buffer.get(this.position) == '+') {
+                this.position++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (this.position < this.limit && isDigit(this.buffer.get(this.position))) {
+                value = value * 10 + (this.buffer.get(this.position++) - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw this.error("entero fuera de rango: " + this.text(start));
                 }
-                else {
-                    problem.setReadyTime(i, Double.parseDouble(parts[8]));
-                    problem.setDueTime(i, Double.parseDouble(parts[9]));                    
+                digits++;
+            }
+            if (digits == 0 || !this.atTokenEnd()) {
+                throw this.error("se esperaba un número entero: " + this.text(start));
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        /**
+         * Método que lee un campo real de la línea actual. Los números con hasta 15 cifras significativas y
+         * un exponente pequeño, como los de las instancias, se calculan con una sola operación exacta y
+         * redondeada, que da el mismo resultado que Double.parseDouble; el resto se delega en ese método.
+         *
+         * @return Valor del campo.
+         */
+        double nextDouble() {
+            int start = this.startToken();
+            boolean negative = this.buffer.get(this.position) == '-';
+            if (negative || this.buffer.get(this.position) == '+') {
+                this.position++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean exact = true;
+            while (this.position < this.limit && isDigit(this.buffer.get(this.position))) {
+                digits++;
+                if (mantissa < 100000000000000L) {
+                    mantissa = mantissa * 10 + (this.buffer.get(this.position) - '0');
+                } else {
+                    exact = false;
                 }
-                line = null; parts = null;
+                this.position++;
             }
-            problem.calculateDistanceMatrix();
-        } catch (IOException e) {
-            System.err.println(e);
-            System.exit(0);
-        } finally {
-            if (reader != null) {
+            if (this.position < this.limit && this.buffer.get(this.position) == '.') {
+                this.position++;
+                while (this.position < this.limit && isDigit(this.buffer.get(this.position))) {
+                    digits++;
+                    if (mantissa < 100000000000000L) {
+                        mantissa = mantissa * 10 + (this.buffer.get(this.position) - '0');
+                        scale++;
+                    } else {
+                        exact = false;
+                    }
+                    this.position++;
+                }
+            }
+            if (digits == 0) {
+                throw this.error("se esperaba un número: " + this.text(start));
+            }
+            if (this.position < this.limit && (this.buffer.get(this.position) | 0x20) == 'e') {
+                exact = false;
+                this.position++;
+                while (this.position < this.limit && !isSeparator(this.buffer.get(this.position))) {
+                    this.position++;
+                }
+            }
+            if (!this.atTokenEnd()) {
+                throw this.error("se esperaba un número: " + this.text(start));
+            }
+            if (!exact || scale >= POWERS_OF_TEN.length) {
                 try {
-                    reader.close();
-                } catch (IOException ex) {
-                    System.err.println(ex);
-                    System.exit(0);
+                    return Double.parseDouble(this.text(start));
+                } catch (NumberFormatException e) {
+                    throw this.error("se esperaba un número: " + this.text(start));
                 }
             }
+            double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+
+        /**
+         * Método que salta los separadores hasta el siguiente campo de la línea actual.
+         *
+         * @return Posición de inicio del campo.
+         */
+        private int startToken() {
+            while (this.position < this.limit && isBlank(this.buffer.get(this.position))) {
+                this.position++;
+            }
+            if (this.position >= this.limit || isLineEnd(this.buffer.get(this.position))) {
+                throw this.error("faltan campos en la línea");
+            }
+            return this.position;
+        }
+
+        private boolean atTokenEnd() {
+            return this.position >= this.limit || isSeparator(this.buffer.get(this.position));
+        }
+
+        /**
+         * Método que devuelve el texto del campo que empieza en una posición, para los mensajes de error y
+         * los números que no se pueden convertir directamente.
+         */
+        private String text(int start) {
+            int end = start;
+            while (end < this.limit && !isSeparator(this.buffer.get(end))) {
+                end++;
+            }
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = this.buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(this.filePath + ":" + this.line + ": " + message);
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+
+        private static boolean isLineEnd(byte b) {
+            return b == '\n' || b == '\r';
+        }
+
+        private static boolean isSeparator(byte b) {
+            return isBlank(b) || isLineEnd(b);
         }
-        problem.setMaxTimePerRoute(problem.getDueTime(0));
-        return problem;
     }
-    
 }
@@ -0,0 +1,178 @@
+package top;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Clase que implementa la salida de resultados del algoritmo GRASP.
+ * Según el nivel elegido se escribe todo el detalle de cada iteración, solo las mejoras, solo el resumen
+ * final o nada. Las soluciones que no se van a escribir no se formatean, y en modo asíncrono el formateo
+ * y la escritura se realizan en un hilo aparte sobre una copia de la solución.
+ */
+public class TOPTWReporter implements AutoCloseable {
+
+    /**
+     * Niveles de detalle de la salida.
+     */
+    public enum Level {
+        /** No se escribe nada. */
+        SILENT,
+        /** Solo el resumen final (media y mejor solución). */
+        SUMMARY,
+        /** El resumen final y cada solución que mejora a la mejor encontrada. */
+        BEST_ONLY,
+        /** El resumen final y la solución de cada iteración. */
+        FULL_TRACE
+    }
+
+    private final Level level;
+    private final Appendable output;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor de la clase TOPTWReporter con escritura síncrona.
+     *
+     * @param level Nivel de detalle.
+     * @param output Destino de la salida.
+     */
+    public TOPTWReporter(Level level, Appendable output) {
+        this(level, output, false);
+    }
+
+    /**
+     * Constructor de la clase TOPTWReporter.
+     *
+     * @param level Nivel de detalle.
+     * @param output Destino de la salida.
+     * @param asynchronous true para formatear y escribir en un hilo aparte.
+     */
+    public TOPTWReporter(Level level, Appendable output, boolean asynchronous) {
+        this.level = level;
+        this.output = output;
+        if(asynchronous && level != Level.SILENT) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "TOPTWReporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Método que crea un TOPTWReporter que no escribe nada.
+     *
+     * @return TOPTWReporter silencioso.
+     */
+    public static TOPTWReporter silent() {
+        return new TOPTWReporter(Level.SILENT, null);
+    }
+
+    /**
+     * Método que devuelve el nivel de detalle.
+     *
+     * @return Nivel de detalle.
+     */
+    public Level getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Método que informa de la solución obtenida en una iteración.
+     *
+     * @param iteration Número de iteración.
+     * @param solution Solución de la iteración.
+     * @param improved true si la solución mejora a la mejor encontrada hasta el momento.
+     */
+    public void reportIteration(int iteration, TOPTWSolution solution, boolean improved) {
+        if(this.level == Level.FULL_TRACE || (this.level == Level.BEST_ONLY && improved)) {
+            if(this.executor != null) {
+                TOPTWSolution snapshot = new TOPTWSolution(solution);
+                this.executor.execute(() -> this.write(snapshot.getInfoSolution() + System.lineSeparator()));
+            } else {
+                this.write(solution.getInfoSolution() + System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * Método que informa del resultado final de una ejecución.
+     *
+     * @param result Resultado de la ejecución.
+     */
+    public void reportSummary(TOPTWGRASPResult result) {
+        if(this.level == Level.SILENT) {
+            return;
+        }
+        String text = " --> MEDIA: " + result.getAverageFitness() + System.lineSeparator()
+                + " --> MEJOR SOLUCION: " + result.getBestFitness() + System.lineSeparator();
+        if(this.executor != null) {
+            this.executor.execute(() -> this.write(text));
+        } else {
+            this.write(text);
+        }
+        this.flush();
+    }
+
+    /**
+     * Método que espera a que se escriba toda la salida pendiente y vacía el destino.
+     */
+    public void flush() {
+        if(this.level == Level.SILENT) {
+            return;
+        }
+        if(this.executor != null) {
+            try {
+                this.executor.submit(this::flushOutput).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        } else {
+            this.flushOutput();
+        }
+    }
+
+    /**
+     * Método que escribe la salida pendiente y libera el hilo de escritura.
+     */
+    @Override
+    public void close() {
+        this.flush();
+        if(this.executor != null) {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * Método que escribe un texto en el destino.
+     *
+     * @param text Texto a escribir.
+     */
+    private void write(String text) {
+        try {
+            this.output.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Método que vacía el destino si admite esta operación.
+     */
+    private void flushOutput() {
+        if(this.output instanceof Flushable) {
+            try {
+                ((Flushable) this.output).flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
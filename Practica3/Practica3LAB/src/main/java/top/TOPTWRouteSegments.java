@@ -0,0 +1,273 @@
+package top;
+
+/**
+ * Clase que carga una ruta de una solución en una secuencia de trabajo junto con los resúmenes
+ * ({@link TOPTWSegment}) de cada nodo, de sus prefijos y de sus sufijos, para evaluar movimientos
+ * sobre la ruta en tiempo constante.
+ * La posición 0 de la secuencia es el depósito inicial y la posición size + 1 el depósito final.
+ * Opcionalmente se calculan también los resúmenes de las cadenas de clientes consecutivos de hasta
+ * una longitud dada, y la caja envolvente y el intervalo de servicio de la ruta, que se usan para
+ * descartar pares de rutas en la búsqueda entre rutas.
+ */
+public class TOPTWRouteSegments {
+    private TOPTW problem;
+    private int maxChainLength;
+    private int route;
+    private int size;
+    private int[] sequence;
+    private TOPTWSegment[] nodeSegment;
+    private TOPTWSegment[] prefix;
+    private TOPTWSegment[] suffix;
+    private TOPTWSegment[][] chain;
+    private double minX;
+    private double maxX;
+    private double minY;
+    private double maxY;
+    private double startTime;
+    private double endTime;
+    private double minRemovalEndTime;
+    private TOPTWSegment removal;
+
+    /**
+     * Constructor de la clase TOPTWRouteSegments.
+     *
+     * @param problem Problema TOPTW.
+     * @param maxChainLength Longitud máxima de las cadenas precalculadas (0 para no calcularlas).
+     */
+    public TOPTWRouteSegments(TOPTW problem, int maxChainLength) {
+        this.problem = problem;
+        this.maxChainLength = maxChainLength;
+        int length = problem.getPOIs() + 2;
+        this.sequence = new int[length];
+        this.prefix = new TOPTWSegment[length];
+        this.suffix = new TOPTWSegment[length];
+        this.nodeSegment = new TOPTWSegment[length];
+        this.chain = new TOPTWSegment[length][maxChainLength];
+        for(int i = 0; i < length; i++) {
+            this.prefix[i] = new TOPTWSegment();
+            this.suffix[i] = new TOPTWSegment();
+            this.nodeSegment[i] = new TOPTWSegment();
+            for(int l = 0; l < maxChainLength; l++) {
+                this.chain[i][l] = new TOPTWSegment();
+            }
+        }
+        this.removal = new TOPTWSegment();
+        this.route = TOPTWSolution.NO_INITIALIZED;
+    }
+
+    /**
+     * Método que carga una ruta y calcula los resúmenes de sus nodos, prefijos, sufijos y cadenas,
+     * así como su caja envolvente y su intervalo de servicio.
+     *
+     * @param solution Solución.
+     * @param k Índice de la ruta.
+     * @return Número de clientes de la ruta.
+     */
+    public int load(TOPTWSolution solution, int k) {
+        int depot = solution.getIndexRoute(k);
+        this.route = k;
+        this.size = 0;
+        this.sequence[0] = depot;
+        this.nodeSegment[0].setRouteStart(depot, solution.getDepartureTime(depot));
+        this.minX = Double.POSITIVE_INFINITY;
+        this.maxX = Double.NEGATIVE_INFINITY;
+        this.minY = Double.POSITIVE_INFINITY;
+        this.maxY = Double.NEGATIVE_INFINITY;
+        this.startTime = Double.POSITIVE_INFINITY;
+        this.endTime = Double.NEGATIVE_INFINITY;
+        int node = solution.getSuccessor(depot);
+        while(node != depot) {
+            this.size++;
+            this.sequence[this.size] = node;
+            this.nodeSegment[this.size].setCustomer(this.problem, node);
+            double x = this.problem.getX(node);
+            double y = this.problem.getY(node);
+            this.minX = Math.min(this.minX, x);
+            this.maxX = Math.max(this.maxX, x);
+            this.minY = Math.min(this.minY, y);
+            this.maxY = Math.max(this.maxY, y);
+            this.startTime = Math.min(this.startTime, solution.getArrivalTime(node) + solution.getWaitingTime(node));
+            this.endTime = Math.max(this.endTime, solution.getDepartureTime(node));
+            node = solution.getSuccessor(node);
+        }
+        this.sequence[this.size + 1] = depot;
+        this.nodeSegment[this.size + 1].setRouteEnd(this.problem, depot);
+        this.prefix[0].copyFrom(this.nodeSegment[0]);
+        for(int i = 1; i <= this.size + 1; i++) {
+            this.prefix[i].concat(this.problem, this.prefix[i - 1], this.nodeSegment[i]);
+        }
+        this.suffix[this.size + 1].copyFrom(this.nodeSegment[this.size + 1]);
+        for(int i = this.size; i >= 0; i--) {
+            this.suffix[i].concat(this.problem, this.nodeSegment[i], this.suffix[i + 1]);
+        }
+        for(int i = 1; i <= this.size; i++) {
+            for(int l = 0; l < this.maxChainLength && i + l <= this.size; l++) {
+                if(l == 0) {
+                    this.chain[i][0].copyFrom(this.nodeSegment[i]);
+                } else {
+                    this.chain[i][l].concat(this.problem, this.chain[i][l - 1], this.nodeSegment[i + l]);
+                }
+            }
+        }
+        this.minRemovalEndTime = this.getEndTime();
+        for(int i = 1; i <= this.size; i++) {
+            for(int l = 1; l <= this.maxChainLength && i + l - 1 <= this.size; l++) {
+                this.minRemovalEndTime = Math.min(this.minRemovalEndTime, this.getRemovalEndTime(i, l, this.removal));
+            }
+        }
+        return this.size;
+    }
+
+    /**
+     * Método que indica si un punto está a una distancia no mayor que margin de la caja envolvente de la ruta.
+     * Una ruta sin clientes no tiene caja y acepta cualquier punto.
+     *
+     * @param x Coordenada X.
+     * @param y Coordenada Y.
+     * @param margin Margen de la caja.
+     * @return true si el punto está dentro de la caja ampliada, false en caso contrario.
+     */
+    public boolean isNear(double x, double y, double margin) {
+        if(this.size == 0) {
+            return true;
+        }
+        return x >= this.minX - margin && x <= this.maxX + margin && y >= this.minY - margin && y <= this.maxY + margin;
+    }
+
+    /**
+     * Método que indica si las cajas envolventes y los intervalos de servicio de dos rutas están a una
+     * distancia no mayor que margin. Una ruta sin clientes está cerca de cualquier otra.
+     *
+     * @param other Otra ruta cargada.
+     * @param margin Margen espacial y temporal.
+     * @return true si las rutas están cerca, false en caso contrario.
+     */
+    public boolean isNear(TOPTWRouteSegments other, double margin) {
+        if(this.size == 0 || other.size == 0) {
+            return true;
+        }
+        double gapX = Math.max(0.0, Math.max(this.minX - other.maxX, other.minX - this.maxX));
+        double gapY = Math.max(0.0, Math.max(this.minY - other.maxY, other.minY - this.maxY));
+        if(gapX * gapX + gapY * gapY > margin * margin) {
+            return false;
+        }
+        double gapTime = Math.max(this.startTime - other.endTime, other.startTime - this.endTime);
+        return gapTime <= margin;
+    }
+
+    /**
+     * Método que calcula el tiempo de finalización de la ruta cargada sin una de sus cadenas. Como las
+     * distancias cumplen la desigualdad triangular, es una cota inferior del tiempo de finalización de
+     * cualquier ruta que conserve el prefijo y el sufijo, aunque se inserte otra cadena en el hueco.
+     *
+     * @param position Posición de la cadena.
+     * @param length Longitud de la cadena (0 para no quitar ningún cliente).
+     * @param result Resumen de trabajo en el que se concatena la ruta sin la cadena.
+     * @return Tiempo de finalización de la ruta sin la cadena, o infinito si no es factible.
+     */
+    public double getRemovalEndTime(int position, int length, TOPTWSegment result) {
+        if(length == 0) {
+            return this.getEndTime();
+        }
+        result.concat(this.problem, this.prefix[position - 1], this.suffix[position + length]);
+        return result.isFeasible() ? result.getEndTime() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Método que devuelve el menor tiempo de finalización de la ruta cargada al quitarle una cadena de hasta
+     * maxChainLength clientes, o sin quitarle ninguno. Acota inferiormente el tiempo de finalización de la
+     * ruta después de cualquier intercambio de cadenas con otra ruta.
+     *
+     * @return Menor tiempo de finalización sin una cadena.
+     */
+    public double getMinRemovalEndTime() {
+        return this.minRemovalEndTime;
+    }
+
+    /**
+     * Método que devuelve el índice de la ruta cargada.
+     *
+     * @return Índice de la ruta.
+     */
+    public int getRoute() {
+        return this.route;
+    }
+
+    /**
+     * Método que devuelve el número de clientes de la ruta cargada.
+     *
+     * @return Número de clientes.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Método que devuelve el nodo de una posición de la secuencia.
+     *
+     * @param position Posición (0 y size + 1 son el depósito).
+     * @return Nodo de la posición.
+     */
+    public int getNode(int position) {
+        return this.sequence[position];
+    }
+
+    /**
+     * Método que devuelve la secuencia de trabajo de la ruta.
+     *
+     * @return Secuencia de nodos, con el depósito en las posiciones 0 y size + 1.
+     */
+    public int[] getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Método que devuelve el resumen de un único nodo.
+     *
+     * @param position Posición del nodo.
+     * @return Resumen del nodo.
+     */
+    public TOPTWSegment getNodeSegment(int position) {
+        return this.nodeSegment[position];
+    }
+
+    /**
+     * Método que devuelve el resumen del prefijo que termina en una posición (incluida).
+     *
+     * @param position Posición final del prefijo.
+     * @return Resumen del prefijo.
+     */
+    public TOPTWSegment getPrefix(int position) {
+        return this.prefix[position];
+    }
+
+    /**
+     * Método que devuelve el resumen del sufijo que empieza en una posición (incluida).
+     *
+     * @param position Posición inicial del sufijo.
+     * @return Resumen del sufijo.
+     */
+    public TOPTWSegment getSuffix(int position) {
+        return this.suffix[position];
+    }
+
+    /**
+     * Método que devuelve el resumen de la cadena de clientes que empieza en una posición.
+     *
+     * @param position Posición del primer cliente.
+     * @param length Número de clientes de la cadena, entre 1 y la longitud máxima precalculada.
+     * @return Resumen de la cadena.
+     */
+    public TOPTWSegment getChain(int position, int length) {
+        return this.chain[position][length - 1];
+    }
+
+    /**
+     * Método que devuelve el tiempo de finalización de la ruta cargada.
+     *
+     * @return Tiempo de finalización de la ruta.
+     */
+    public double getEndTime() {
+        return this.prefix[this.size + 1].getEndTime();
+    }
+}
@@ -0,0 +1,175 @@
+package top;
+
+/**
+ * Clase que resume una secuencia de nodos consecutivos de una ruta para evaluar en tiempo constante
+ * la factibilidad de las ventanas temporales al concatenar secuencias.
+ * Una secuencia se describe por su duración mínima (viaje, servicio y espera), el primer y el último
+ * instante en que puede empezar el servicio de su primer nodo y el retraso acumulado sobre los due time
+ * (time warp), que debe ser cero para que la secuencia sea factible.
+ * Los objetos son mutables para poder reutilizarlos sin reservar memoria durante la búsqueda local.
+ */
+public class TOPTWSegment {
+    private int first;
+    private int last;
+    private double duration;
+    private double earliest;
+    private double latest;
+    private double timeWarp;
+
+    /**
+     * Método que inicializa la secuencia con un único cliente.
+     *
+     * @param problem Problema TOPTW.
+     * @param node Cliente.
+     */
+    public void setCustomer(TOPTW problem, int node) {
+        this.first = node;
+        this.last = node;
+        this.duration = problem.getServiceTime(node);
+        this.earliest = problem.getReadyTime(node);
+        // la llegada debe ser estrictamente anterior al due time
+        this.latest = Math.nextDown(problem.getDueTime(node));
+        this.timeWarp = this.earliest > this.latest ? this.earliest - this.latest : 0.0;
+    }
+
+    /**
+     * Método que inicializa la secuencia con el depósito al inicio de una ruta, del que se sale en un instante fijo.
+     *
+     * @param depot Depósito de la ruta.
+     * @param departure Instante de salida del depósito.
+     */
+    public void setRouteStart(int depot, double departure) {
+        this.first = depot;
+        this.last = depot;
+        this.duration = 0.0;
+        this.earliest = departure;
+        this.latest = departure;
+        this.timeWarp = 0.0;
+    }
+
+    /**
+     * Método que inicializa la secuencia con el depósito al final de una ruta. Además de su due time,
+     * el servicio en el depósito debe terminar antes del tiempo máximo por ruta.
+     *
+     * @param problem Problema TOPTW.
+     * @param depot Depósito de la ruta.
+     */
+    public void setRouteEnd(TOPTW problem, int depot) {
+        this.first = depot;
+        this.last = depot;
+        this.duration = problem.getServiceTime(depot);
+        this.earliest = problem.getReadyTime(depot);
+        this.latest = Math.min(Math.nextDown(problem.getDueTime(depot)), problem.getMaxTimePerRoute() - this.duration);
+        this.timeWarp = this.earliest > this.latest ? this.earliest - this.latest : 0.0;
+    }
+
+    /**
+     * Método que copia otra secuencia.
+     *
+     * @param other Secuencia a copiar.
+     */
+    public void copyFrom(TOPTWSegment other) {
+        this.first = other.first;
+        this.last = other.last;
+        this.duration = other.duration;
+        this.earliest = other.earliest;
+        this.latest = other.latest;
+        this.timeWarp = other.timeWarp;
+    }
+
+    /**
+     * Método que guarda en esta secuencia la concatenación de dos secuencias. Cualquiera de ellas puede ser
+     * esta misma secuencia.
+     *
+     * @param problem Problema TOPTW.
+     * @param a Secuencia inicial.
+     * @param b Secuencia final.
+     */
+    public void concat(TOPTW problem, TOPTWSegment a, TOPTWSegment b) {
+        double travel = problem.getDistance(a.last, b.first);
+        double delta = a.duration - a.timeWarp + travel;
+        double deltaWaiting = Math.max(b.earliest - delta - a.latest, 0.0);
+        double deltaTimeWarp = Math.max(a.earliest + delta - b.latest, 0.0);
+        double earliest = Math.max(b.earliest - delta, a.earliest) - deltaWaiting;
+        double latest = Math.min(b.latest - delta, a.latest) + deltaTimeWarp;
+        this.duration = a.duration + b.duration + travel + deltaWaiting;
+        this.timeWarp = a.timeWarp + b.timeWarp + deltaTimeWarp;
+        this.earliest = earliest;
+        this.latest = latest;
+        this.first = a.first;
+        this.last = b.last;
+    }
+
+    /**
+     * Método que indica si la secuencia respeta todas las ventanas temporales.
+     *
+     * @return true si la secuencia es factible, false en caso contrario.
+     */
+    public boolean isFeasible() {
+        return this.timeWarp <= 0.0;
+    }
+
+    /**
+     * Método que devuelve el instante en que termina la secuencia si empieza lo antes posible.
+     * Para una ruta completa es el tiempo de finalización de la ruta.
+     *
+     * @return Instante de finalización de la secuencia.
+     */
+    public double getEndTime() {
+        return this.earliest + this.duration;
+    }
+
+    /**
+     * Método que devuelve el primer nodo de la secuencia.
+     *
+     * @return Primer nodo.
+     */
+    public int getFirst() {
+        return this.first;
+    }
+
+    /**
+     * Método que devuelve el último nodo de la secuencia.
+     *
+     * @return Último nodo.
+     */
+    public int getLast() {
+        return this.last;
+    }
+
+    /**
+     * Método que devuelve la duración mínima de la secuencia.
+     *
+     * @return Duración de la secuencia.
+     */
+    public double getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Método que devuelve el primer instante en que puede empezar el servicio del primer nodo.
+     *
+     * @return Inicio más temprano.
+     */
+    public double getEarliest() {
+        return this.earliest;
+    }
+
+    /**
+     * Método que devuelve el último instante en que puede empezar el servicio del primer nodo sin retrasos.
+     *
+     * @return Inicio más tardío.
+     */
+    public double getLatest() {
+        return this.latest;
+    }
+
+    /**
+     * Método que devuelve el retraso acumulado sobre los due time de la secuencia.
+     *
+     * @return Time warp de la secuencia.
+     */
+    public double getTimeWarp() {
+        return this.timeWarp;
+    }
+}
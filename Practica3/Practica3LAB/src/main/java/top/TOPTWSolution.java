@@ -12,12 +12,25 @@ public class TOPTWSolution {
     private TOPTW problem;
     private int[] predecessors;
     private int[] successors;
+    private double[] arrivalTime;
+    private double[] departureTime;
     private double[] waitingTime;
+    private double[] maxShift;
+    private double[] cumulativeWaitingTime;
     private int[] positionInRoute;
+    private int[] routeOf;
     
     private int[] routes;
+    private int[] routeSize;
     private int availableVehicles;
     private double objectiveFunctionValue;
+    private long arcHash;
+
+    // resumen de cada ruta, actualizado en cada recálculo de su horario
+    private double[] routeScore;
+    private double[] routeEndTime;
+    private boolean[] routeFeasible;
+    private int infeasibleRoutes;
 
     /**
      * Constructor de la clase TOPTWSolution.
@@ -29,30 +42,369 @@ public class TOPTWSolution {
         this.availableVehicles = this.problem.getVehicles();
         this.predecessors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
         this.successors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        this.waitingTime = new double[this.problem.getPOIs()];
-        this.positionInRoute = new int[this.problem.getPOIs()];
+        this.arrivalTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.departureTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.waitingTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.maxShift = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.cumulativeWaitingTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.positionInRoute = new int[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.routeOf = new int[this.problem.getPOIs()+this.problem.getVehicles()];
         Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
         Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.arrivalTime, TOPTWSolution.NO_INITIALIZED);
         Arrays.fill(this.waitingTime, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.maxShift, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.cumulativeWaitingTime, TOPTWSolution.NO_INITIALIZED);
         Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.routeOf, TOPTWSolution.NO_INITIALIZED);
         this.routes = new int[this.problem.getVehicles()];
-        this.objectiveFunctionValue = TOPTWEvaluator.NO_EVALUATED;
+        this.routeSize = new int[this.problem.getVehicles()];
+        this.routeScore = new double[this.problem.getVehicles()];
+        this.routeEndTime = new double[this.problem.getVehicles()];
+        this.routeFeasible = new boolean[this.problem.getVehicles()];
+        Arrays.fill(this.routeFeasible, true);
+        this.infeasibleRoutes = 0;
+        this.objectiveFunctionValue = 0.0;
+        this.arcHash = 0L;
+    }
+
+    /**
+     * Constructor de copia de la clase TOPTWSolution. La copia no comparte estado mutable con el original,
+     * por lo que puede utilizarse desde otro hilo mientras el original sigue modificándose.
+     *
+     * @param other Solución a copiar.
+     */
+    public TOPTWSolution(TOPTWSolution other) {
+        this.problem = other.problem;
+        this.predecessors = other.predecessors.clone();
+        this.successors = other.successors.clone();
+        this.arrivalTime = other.arrivalTime.clone();
+        this.departureTime = other.departureTime.clone();
+        this.waitingTime = other.waitingTime.clone();
+        this.maxShift = other.maxShift.clone();
+        this.cumulativeWaitingTime = other.cumulativeWaitingTime.clone();
+        this.positionInRoute = other.positionInRoute.clone();
+        this.routeOf = other.routeOf.clone();
+        this.routes = other.routes.clone();
+        this.routeSize = other.routeSize.clone();
+        this.routeScore = other.routeScore.clone();
+        this.routeEndTime = other.routeEndTime.clone();
+        this.routeFeasible = other.routeFeasible.clone();
+        this.infeasibleRoutes = other.infeasibleRoutes;
+        this.availableVehicles = other.availableVehicles;
+        this.objectiveFunctionValue = other.objectiveFunctionValue;
+        this.arcHash = other.arcHash;
+    }
+
+    /**
+     * Método que copia otra solución del mismo problema sobre ésta, reutilizando sus arrays.
+     *
+     * @param other Solución a copiar.
+     */
+    public void copyFrom(TOPTWSolution other) {
+        if(other.predecessors.length != this.predecessors.length || other.routes.length != this.routes.length) {
+            throw new IllegalArgumentException("Las soluciones no son del mismo problema");
+        }
+        this.problem = other.problem;
+        System.arraycopy(other.predecessors, 0, this.predecessors, 0, this.predecessors.length);
+        System.arraycopy(other.successors, 0, this.successors, 0, this.successors.length);
+        System.arraycopy(other.arrivalTime, 0, this.arrivalTime, 0, this.arrivalTime.length);
+        System.arraycopy(other.departureTime, 0, this.departureTime, 0, this.departureTime.length);
+        System.arraycopy(other.waitingTime, 0, this.waitingTime, 0, this.waitingTime.length);
+        System.arraycopy(other.maxShift, 0, this.maxShift, 0, this.maxShift.length);
+        System.arraycopy(other.cumulativeWaitingTime, 0, this.cumulativeWaitingTime, 0, this.cumulativeWaitingTime.length);
+        System.arraycopy(other.positionInRoute, 0, this.positionInRoute, 0, this.positionInRoute.length);
+        System.arraycopy(other.routeOf, 0, this.routeOf, 0, this.routeOf.length);
+        System.arraycopy(other.routes, 0, this.routes, 0, this.routes.length);
+        System.arraycopy(other.routeSize, 0, this.routeSize, 0, this.routeSize.length);
+        System.arraycopy(other.routeScore, 0, this.routeScore, 0, this.routeScore.length);
+        System.arraycopy(other.routeEndTime, 0, this.routeEndTime, 0, this.routeEndTime.length);
+        System.arraycopy(other.routeFeasible, 0, this.routeFeasible, 0, this.routeFeasible.length);
+        this.infeasibleRoutes = other.infeasibleRoutes;
+        this.availableVehicles = other.availableVehicles;
+        this.objectiveFunctionValue = other.objectiveFunctionValue;
+        this.arcHash = other.arcHash;
+    }
+
+    /**
+     * Método que crea una copia independiente de la solución.
+     *
+     * @return Copia de la solución.
+     */
+    public TOPTWSolution snapshot() {
+        return new TOPTWSolution(this);
     }
 
     /**
-     * Método que inicializa la solución.
+     * Método que inicializa la solución. Los arrays se reinician en su sitio, sin reservar memoria.
      */
     public void initSolution() {
-        this.predecessors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        this.successors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
         Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
         Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
-        this.routes = new int[this.problem.getVehicles()];
         Arrays.fill(this.routes, TOPTWSolution.NO_INITIALIZED);
         this.routes[0] = 0;
         this.predecessors[0] = 0;
-        this.successors[0] = 0;
+        this.arcHash = 0L;
+        this.setArc(0, 0);
         this.availableVehicles = this.problem.getVehicles() - 1;
+        Arrays.fill(this.routeOf, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.routeSize, 0);
+        Arrays.fill(this.routeScore, 0.0);
+        Arrays.fill(this.routeEndTime, 0.0);
+        Arrays.fill(this.routeFeasible, true);
+        this.infeasibleRoutes = 0;
+        this.objectiveFunctionValue = 0.0;
+        this.routeOf[0] = 0;
+        this.positionInRoute[0] = 0;
+        Arrays.fill(this.departureTime, 0.0);
+        this.updateSchedule(0, 0);
+    }
+
+    /**
+     * Método que inserta un cliente en la ruta de un nodo, justo después de él, y actualiza
+     * los tiempos, las posiciones y el índice de rutas.
+     *
+     * @param customer Cliente a insertar.
+     * @param predecessor Nodo de la ruta tras el que se inserta el cliente.
+     */
+    public void insertAfter(int customer, int predecessor) {
+        int route = this.routeOf[predecessor];
+        int successor = this.successors[predecessor];
+        this.predecessors[customer] = predecessor;
+        this.setArc(customer, successor);
+        this.setArc(predecessor, customer);
+        this.predecessors[successor] = customer;
+        this.routeOf[customer] = route;
+        this.routeSize[route]++;
+        this.updateSchedule(predecessor, this.routes[route]);
+    }
+
+    /**
+     * Método que elimina un cliente de su ruta y actualiza los tiempos, las posiciones y el índice de rutas.
+     *
+     * @param customer Cliente a eliminar.
+     */
+    public void remove(int customer) {
+        int route = this.routeOf[customer];
+        int predecessor = this.predecessors[customer];
+        int successor = this.successors[customer];
+        this.setArc(predecessor, successor);
+        this.predecessors[successor] = predecessor;
+        this.predecessors[customer] = TOPTWSolution.NO_INITIALIZED;
+        this.setArc(customer, TOPTWSolution.NO_INITIALIZED);
+        this.routeOf[customer] = TOPTWSolution.NO_INITIALIZED;
+        this.positionInRoute[customer] = TOPTWSolution.NO_INITIALIZED;
+        this.routeSize[route]--;
+        this.updateSchedule(predecessor, this.routes[route]);
+    }
+
+    /**
+     * Método que sustituye la secuencia de clientes de una ruta y actualiza los tiempos, las posiciones y
+     * el índice de rutas. Los clientes que estaban en la ruta y no aparecen en la nueva secuencia deben
+     * haberse reubicado o eliminado previamente.
+     *
+     * @param route Índice de la ruta.
+     * @param nodes Clientes de la ruta en orden de visita.
+     * @param size Número de clientes de la secuencia.
+     */
+    public void setRoute(int route, int[] nodes, int size) {
+        int depot = this.routes[route];
+        int pre = depot;
+        for(int i = 0; i < size; i++) {
+            int node = nodes[i];
+            this.setArc(pre, node);
+            this.predecessors[node] = pre;
+            this.routeOf[node] = route;
+            pre = node;
+        }
+        this.setArc(pre, depot);
+        this.predecessors[depot] = pre;
+        this.routeSize[route] = size;
+        this.updateSchedule(depot, depot);
+    }
+
+    /**
+     * Método que comprueba, recorriendo la ruta, si se cumplen todas las ventanas temporales y el tiempo máximo.
+     *
+     * @param route Índice de la ruta.
+     * @return true si la ruta es factible, false en caso contrario.
+     */
+    public boolean isFeasibleRoute(int route) {
+        int depot = this.routes[route];
+        int node = depot;
+        do {
+            node = this.successors[node];
+            if(this.arrivalTime[node] >= this.problem.getDueTime(node)) {
+                return false;
+            }
+        } while(node != depot);
+        return this.getRouteEndTime(depot) <= this.problem.getMaxTimePerRoute();
+    }
+
+    /**
+     * Método que actualiza los tiempos de llegada, espera, salida y holgura (max shift) de una ruta,
+     * así como la posición de sus nodos, a partir de un nodo cuyo tiempo de salida es conocido.
+     * Los tiempos de llegada, espera y salida se propagan hacia delante hasta el depósito final, y la holgura
+     * y la espera acumulada se recalculan hacia atrás, de modo que la factibilidad de una inserción
+     * se pueda comprobar en tiempo constante. La pasada hacia atrás recorre la ruta completa y aprovecha
+     * para obtener su score, su tiempo de finalización y su factibilidad, que actualizan los totales de la
+     * solución sin recorrerla de nuevo.
+     *
+     * @param pre Nodo a partir del cual se actualiza la ruta.
+     * @param depot Depósito de la ruta.
+     */
+    public void updateSchedule(int pre, int depot) {
+        double time = this.departureTime[pre];
+        int position = this.positionInRoute[pre];
+        int suc = -1;
+        do {
+            suc = this.successors[pre];
+            double arrival = time + this.getDistance(pre, suc);
+            double start = arrival;
+            if(start < this.problem.getReadyTime(suc)) {
+                start = this.problem.getReadyTime(suc);
+            }
+            this.arrivalTime[suc] = arrival;
+            this.waitingTime[suc] = start - arrival;
+            time = start + this.problem.getServiceTime(suc);
+            if(suc != depot) {
+                this.departureTime[suc] = time;
+                this.positionInRoute[suc] = ++position;
+            }
+            pre = suc;
+        } while(suc != depot);
+
+        double maxTime = this.problem.getMaxTimePerRoute();
+        double nextMaxShift = Double.POSITIVE_INFINITY;
+        double nextWaitingTime = 0.0;
+        double score = 0.0;
+        boolean feasible = this.getRouteEndTime(depot) <= maxTime;
+        int node = depot;
+        do {
+            double departure = (node != depot) ? this.departureTime[node] : this.getRouteEndTime(depot);
+            // la llegada debe ser estrictamente anterior al due time
+            double dueSlack = Math.nextDown(this.problem.getDueTime(node) - this.arrivalTime[node]);
+            this.maxShift[node] = Math.min(dueSlack, this.waitingTime[node] + Math.min(maxTime - departure, nextMaxShift));
+            this.cumulativeWaitingTime[node] = this.waitingTime[node] + nextWaitingTime;
+            nextMaxShift = this.maxShift[node];
+            nextWaitingTime = this.cumulativeWaitingTime[node];
+            score += this.problem.getScore(node);
+            feasible &= this.arrivalTime[node] < this.problem.getDueTime(node);
+            node = this.predecessors[node];
+        } while(node != depot);
+        this.updateRouteSummary(this.routeOf[depot], score, this.getRouteEndTime(depot), feasible);
+    }
+
+    /**
+     * Método que guarda el resumen de una ruta y recalcula el valor de la función objetivo sumando el score
+     * de las rutas creadas, sin recorrerlas.
+     *
+     * @param route Índice de la ruta.
+     * @param score Score de la ruta.
+     * @param endTime Tiempo de finalización de la ruta.
+     * @param feasible true si la ruta cumple las ventanas temporales y el tiempo máximo.
+     */
+    private void updateRouteSummary(int route, double score, double endTime, boolean feasible) {
+        if(this.routeFeasible[route] != feasible) {
+            this.infeasibleRoutes += feasible ? -1 : 1;
+        }
+        this.routeScore[route] = score;
+        this.routeEndTime[route] = endTime;
+        this.routeFeasible[route] = feasible;
+        double total = 0.0;
+        for(int k = 0; k < this.getCreatedRoutes(); k++) {
+            total += this.routeScore[k];
+        }
+        this.objectiveFunctionValue = total;
+    }
+
+    /**
+     * Método que comprueba en tiempo constante si se puede retrasar la llegada a un nodo.
+     *
+     * @param node Nodo de la ruta (el depósito representa el final de la ruta).
+     * @param arrival Nuevo tiempo de llegada al nodo.
+     * @return true si la ruta sigue siendo factible, false en caso contrario.
+     */
+    public boolean isFeasibleArrival(int node, double arrival) {
+        return arrival - this.arrivalTime[node] <= this.maxShift[node];
+    }
+
+    /**
+     * Método que devuelve el tiempo de finalización de una ruta si la llegada a uno de sus nodos se retrasa.
+     *
+     * @param node Nodo de la ruta (el depósito representa el final de la ruta).
+     * @param arrival Nuevo tiempo de llegada al nodo.
+     * @param depot Depósito de la ruta.
+     * @return Tiempo de finalización de la ruta.
+     */
+    public double getRouteEndTime(int node, double arrival, int depot) {
+        double shift = arrival - this.arrivalTime[node] - this.cumulativeWaitingTime[node];
+        if(shift < 0) {
+            shift = 0;
+        }
+        return this.getRouteEndTime(depot) + shift;
+    }
+
+    /**
+     * Método que comprueba en tiempo constante, con la holgura del sucesor, la inserción de un cliente justo
+     * después de un nodo de una ruta y devuelve el tiempo de finalización resultante de la ruta.
+     *
+     * @param customer Cliente a insertar.
+     * @param pre Nodo de la ruta tras el que se inserta el cliente.
+     * @return Tiempo de finalización de la ruta, o infinito si la inserción no es factible.
+     */
+    public double getInsertionEndTime(int customer, int pre) {
+        return this.getInsertionEndTime(customer, pre, this.successors[pre]);
+    }
+
+    /**
+     * Método que comprueba en tiempo constante la sustitución de un cliente de una ruta por otro que no está
+     * en ninguna ruta y devuelve una cota superior del tiempo de finalización resultante de la ruta.
+     *
+     * @param customer Cliente que entra en la ruta.
+     * @param replaced Cliente de la ruta que se sustituye.
+     * @return Cota superior del tiempo de finalización de la ruta, o infinito si la sustitución no es factible.
+     */
+    public double getReplacementEndTime(int customer, int replaced) {
+        return this.getInsertionEndTime(customer, this.predecessors[replaced], this.successors[replaced]);
+    }
+
+    /**
+     * Método que comprueba en tiempo constante la visita de un cliente entre dos nodos de una ruta.
+     * Los arcos incompatibles con las ventanas temporales se descartan antes de calcular ningún tiempo.
+     * Si el sucesor se alcanza antes que en la ruta actual, la ruta sigue siendo factible y su tiempo de
+     * finalización no aumenta.
+     *
+     * @param customer Cliente a visitar.
+     * @param pre Nodo de la ruta anterior al cliente.
+     * @param suc Nodo de la ruta posterior al cliente.
+     * @return Tiempo de finalización de la ruta (cota superior si se adelanta el sucesor), o infinito si no es factible.
+     */
+    private double getInsertionEndTime(int customer, int pre, int suc) {
+        if(!this.problem.isCompatible(pre, customer) || !this.problem.isCompatible(customer, suc)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double arrival = this.departureTime[pre] + this.getDistance(pre, customer);
+        if(arrival >= this.problem.getDueTime(customer)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double departure = Math.max(arrival, this.problem.getReadyTime(customer)) + this.problem.getServiceTime(customer);
+        double arrivalSuc = departure + this.getDistance(customer, suc);
+        if(departure > this.problem.getMaxTimePerRoute() || !this.isFeasibleArrival(suc, arrivalSuc)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return this.getRouteEndTime(suc, arrivalSuc, this.routes[this.routeOf[pre]]);
+    }
+
+    /**
+     * Método que devuelve el tiempo de finalización de una ruta.
+     *
+     * @param depot Depósito de la ruta.
+     * @return Tiempo de salida del depósito final de la ruta.
+     */
+    public double getRouteEndTime(int depot) {
+        return Math.max(this.arrivalTime[depot], this.problem.getReadyTime(depot)) + this.problem.getServiceTime(depot);
     }
 
     /**
@@ -61,12 +413,8 @@ public class TOPTWSolution {
      * @return true si es un depósito, false en caso contrario.
      */
     public boolean isDepot(int c) {
-        for(int i = 0; i < this.routes.length; i++) {
-            if(c==this.routes[i]) {
-                return true;
-            }
-        }
-        return false;
+        int route = this.routeOf[c];
+        return route != TOPTWSolution.NO_INITIALIZED && this.routes[route] == c;
     }
 
     /**
@@ -83,16 +431,61 @@ public class TOPTWSolution {
             return false;
         }
         TOPTWSolution otherSolution = (TOPTWSolution) obj;
+        // soluciones con distinto hash de arcos no pueden ser iguales
+        if (this.arcHash != otherSolution.arcHash) {
+            return false;
+        }
         return Arrays.equals(this.predecessors, otherSolution.predecessors);
     }
 
     /**
-     * Método que devuelve el hash de la solución.
+     * Método que devuelve el hash de la solución en tiempo constante a partir del hash de arcos.
      * @return Hash de la solución.
      */
     @Override
     public int hashCode() {
-        return Arrays.hashCode(predecessors);
+        return Long.hashCode(this.arcHash);
+    }
+
+    /**
+     * Método que devuelve el hash de 64 bits de los arcos (nodo, sucesor) de la solución. Se mantiene de forma
+     * incremental en cada cambio de sucesor, por lo que consultarlo es O(1), y dos soluciones con las mismas
+     * rutas tienen el mismo hash.
+     * @return Hash de arcos de la solución.
+     */
+    public long getArcHash() {
+        return this.arcHash;
+    }
+
+    /**
+     * Método que cambia el sucesor de un nodo y actualiza el hash de arcos: se quita con XOR la clave del
+     * arco anterior y se añade la del nuevo (hash de Zobrist sin tabla).
+     * @param node Nodo.
+     * @param successor Nuevo sucesor, o NO_INITIALIZED si el nodo deja de estar en una ruta.
+     */
+    private void setArc(int node, int successor) {
+        int old = this.successors[node];
+        if (old != TOPTWSolution.NO_INITIALIZED) {
+            this.arcHash ^= TOPTWSolution.arcKey(node, old);
+        }
+        this.successors[node] = successor;
+        if (successor != TOPTWSolution.NO_INITIALIZED) {
+            this.arcHash ^= TOPTWSolution.arcKey(node, successor);
+        }
+    }
+
+    /**
+     * Método que calcula la clave pseudoaleatoria de 64 bits de un arco con el mezclador de SplitMix64,
+     * sin guardar una tabla de claves por arco.
+     * @param node Nodo origen.
+     * @param successor Nodo destino.
+     * @return Clave del arco.
+     */
+    private static long arcKey(int node, int successor) {
+        long z = (((long) node) << 32 | (successor & 0xFFFFFFFFL)) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -163,7 +556,7 @@ public class TOPTWSolution {
     }
 
     /**
-     * Método que devuelve la posición de un nodo en la ruta.
+     * Método que devuelve la posición de un nodo en la ruta (el depósito ocupa la posición 0).
      * @param customer Nodo a comprobar.
      * @return Posición del nodo en la ruta.
      */
@@ -171,6 +564,24 @@ public class TOPTWSolution {
         return this.positionInRoute[customer];
     }
 
+    /**
+     * Método que devuelve la ruta en la que está un nodo.
+     * @param customer Nodo a comprobar.
+     * @return Índice de la ruta, o NO_INITIALIZED si el nodo no está en ninguna ruta.
+     */
+    public int getRouteOf(int customer) {
+        return this.routeOf[customer];
+    }
+
+    /**
+     * Método que devuelve el número de clientes de una ruta.
+     * @param index Índice de la ruta.
+     * @return Número de clientes de la ruta.
+     */
+    public int getRouteSize(int index) {
+        return this.routeSize[index];
+    }
+
     /**
      * Método que devuelve el nodo sucesor de un nodo.
      * @return Nodo sucesor.
@@ -180,7 +591,8 @@ public class TOPTWSolution {
     }
 
     /**
-     * Método que devuelve los sucesores de los nodos.
+     * Método que devuelve los sucesores de los nodos. El array no debe modificarse directamente, porque
+     * el hash de arcos no se actualizaría; para ello está {@link #setSuccessor(int, int)}.
      * @return Sucesores de los nodos.
      */
     public int[] getSuccessors() {
@@ -196,6 +608,46 @@ public class TOPTWSolution {
         return this.routes[index];
     }
 
+    /**
+     * Método que devuelve el tiempo de llegada a un nodo.
+     *
+     * @param customer Nodo del que se quiere obtener el tiempo de llegada.
+     * @return Tiempo de llegada al nodo.
+     */
+    public double getArrivalTime(int customer) {
+        return this.arrivalTime[customer];
+    }
+
+    /**
+     * Método que devuelve el tiempo de salida de un nodo. Para un depósito es la salida al inicio de su ruta.
+     *
+     * @param customer Nodo del que se quiere obtener el tiempo de salida.
+     * @return Tiempo de salida del nodo.
+     */
+    public double getDepartureTime(int customer) {
+        return this.departureTime[customer];
+    }
+
+    /**
+     * Método que devuelve el máximo retraso admisible en la llegada a un nodo.
+     *
+     * @param customer Nodo del que se quiere obtener la holgura.
+     * @return Holgura (max shift) del nodo.
+     */
+    public double getMaxShift(int customer) {
+        return this.maxShift[customer];
+    }
+
+    /**
+     * Método que devuelve la suma de los tiempos de espera desde un nodo hasta el final de su ruta.
+     *
+     * @param customer Nodo del que se quiere obtener la espera acumulada.
+     * @return Espera acumulada desde el nodo.
+     */
+    public double getCumulativeWaitingTime(int customer) {
+        return this.cumulativeWaitingTime[customer];
+    }
+
     /**
      * Método que devuelve el tiempo de espera de un cliente.
      *
@@ -242,7 +694,7 @@ public class TOPTWSolution {
      * @param succesor Sucesor del cliente.
      */
     public void setSuccessor(int customer, int succesor) {
-        this.successors[customer] = succesor;
+        this.setArc(customer, succesor);
     }
 
     /**
@@ -256,29 +708,29 @@ public class TOPTWSolution {
     }
 
     /**
-     * Método que devuelve información detallada de la solución.
+     * Método que devuelve información detallada de la solución. Los tiempos, el score y la factibilidad son
+     * los que la solución mantiene en cada cambio, sin volver a simular las rutas.
      *
      * @return Información de la solución.
      */
     public String getInfoSolution() {
         final int COLUMN_WIDTH = 15;
-        String text = "\n"+"NODES: " + this.problem.getPOIs() + "\n" + "MAX TIME PER ROUTE: " + this.problem.getMaxTimePerRoute() + "\n" + "MAX NUMBER OF ROUTES: " + this.problem.getMaxRoutes() + "\n";
-        String textSolution = "\n"+"SOLUTION: "+"\n";
-        double costTimeSolution = 0.0, fitnessScore = 0.0;
-        boolean validSolution = true;
+        StringBuilder text = new StringBuilder();
+        text.append("\n").append("NODES: ").append(this.problem.getPOIs()).append("\n").append("MAX TIME PER ROUTE: ").append(this.problem.getMaxTimePerRoute()).append("\n").append("MAX NUMBER OF ROUTES: ").append(this.problem.getMaxRoutes()).append("\n");
+        StringBuilder textSolution = new StringBuilder();
+        textSolution.append("\n").append("SOLUTION: ").append("\n");
         for(int k = 0; k < this.getCreatedRoutes(); k++) { // rutas creadas
             String[] strings = new String[]{"\n" + "ROUTE " + k };
             int[] width = new int[strings.length];
             Arrays.fill(width, COLUMN_WIDTH);
-            text += ExpositoUtilities.getFormat(strings, width) + "\n";
+            text.append(ExpositoUtilities.getFormat(strings, width)).append("\n");
             strings = new String[]{"CUST NO.", "X COORD.", "Y. COORD.", "READY TIME", "DUE DATE", "ARRIVE TIME", " LEAVE TIME", "SERVICE TIME"};
             width = new int[strings.length];
             Arrays.fill(width, COLUMN_WIDTH);
-            text += ExpositoUtilities.getFormat(strings, width) + "\n";
+            text.append(ExpositoUtilities.getFormat(strings, width)).append("\n");
             strings = new String[strings.length];
             int depot = this.getIndexRoute(k);
             int pre=-1, suc=-1;
-            double costTimeRoute = 0.0, fitnessScoreRoute = 0.0;
             pre = depot;
             int index = 0;
             strings[index++] = "" + pre;
@@ -289,60 +741,60 @@ public class TOPTWSolution {
             strings[index++] = "" + 0;
             strings[index++] = "" + 0;
             strings[index++] = "" + this.getProblem().getServiceTime(pre);
-            text += ExpositoUtilities.getFormat(strings, width);
-            text += "\n";
-            do {                // recorremos la ruta
+            text.append(ExpositoUtilities.getFormat(strings, width));
+            text.append("\n");
+            do {                // recorremos la ruta con los tiempos ya calculados
                 index = 0;
                 suc = this.getSuccessor(pre);
-                textSolution += pre+" - ";
+                textSolution.append(pre).append(" - ");
                 strings[index++] = "" + suc;
                 strings[index++] = "" + this.getProblem().getX(suc);
                 strings[index++] = "" + this.getProblem().getY(suc);
                 strings[index++] = "" + this.getProblem().getReadyTime(suc);
                 strings[index++] = "" + this.getProblem().getDueTime(suc);
-                costTimeRoute += this.getDistance(pre, suc);
-                if(costTimeRoute < (this.getProblem().getDueTime(suc))) {
-                    if(costTimeRoute < this.getProblem().getReadyTime(suc)) {
-                        costTimeRoute = this.getProblem().getReadyTime(suc);
-                    }
-                    strings[index++] = "" + costTimeRoute;
-                    costTimeRoute +=  this.getProblem().getServiceTime(suc);
-                    strings[index++] = "" + costTimeRoute;
+                if(this.arrivalTime[suc] < this.getProblem().getDueTime(suc)) {
+                    strings[index++] = "" + (this.arrivalTime[suc] + this.waitingTime[suc]);
+                    strings[index++] = "" + (suc != depot ? this.departureTime[suc] : this.getRouteEndTime(depot));
                     strings[index++] = "" + this.getProblem().getServiceTime(pre);
-                    if(costTimeRoute > this.getProblem().getMaxTimePerRoute()) { validSolution = false; }
-                    fitnessScoreRoute += this.problem.getScore(suc);
-                } else { validSolution = false; }
+                }
                 pre = suc;
-                text += ExpositoUtilities.getFormat(strings, width);
-                text += "\n";
+                text.append(ExpositoUtilities.getFormat(strings, width));
+                text.append("\n");
             } while(suc != depot);
-            textSolution += suc+"\n";
-            costTimeSolution += costTimeRoute;
-            fitnessScore += fitnessScoreRoute;
+            textSolution.append(suc).append("\n");
         }
-        textSolution += "FEASIBLE SOLUTION: "+validSolution+"\n"+"SCORE: "+fitnessScore+"\n"+"TIME COST: "+costTimeSolution+"\n";
-        return textSolution+text;
+        textSolution.append("FEASIBLE SOLUTION: ").append(this.isFeasible()).append("\n").append("SCORE: ").append(this.evaluateFitness()).append("\n").append("TIME COST: ").append(this.getTotalTime()).append("\n");
+        return textSolution.append(text).toString();
     }
 
     /**
-     * Método que evalúa la solución.
+     * Método que evalúa la solución. El score se mantiene en cada inserción, eliminación o cambio de ruta,
+     * por lo que no se recorren las rutas; {@link TOPTWEvaluator} hace la evaluación completa.
      * @return Valor de la función objetivo.
      */
     public double evaluateFitness() {
-        double objectiveFunction = 0.0;
-        double objectiveFunctionPerRoute = 0.0;
+        return this.objectiveFunctionValue;
+    }
+
+    /**
+     * Método que devuelve la suma de los tiempos de finalización de las rutas creadas.
+     * @return Tiempo total de la solución.
+     */
+    public double getTotalTime() {
+        double total = 0.0;
         for(int k = 0; k < this.getCreatedRoutes(); k++) {
-            int depot = this.getIndexRoute(k);
-            int pre=depot, suc = -1;
-            do {
-                suc = this.getSuccessor(pre);
-                objectiveFunctionPerRoute = objectiveFunctionPerRoute + this.problem.getScore(suc);
-                pre = suc;
-            } while((suc != depot));
-            objectiveFunction = objectiveFunction + objectiveFunctionPerRoute;
-            objectiveFunctionPerRoute = 0.0;
+            total += this.routeEndTime[k];
         }
-        return objectiveFunction;
+        return total;
+    }
+
+    /**
+     * Método que indica si todas las rutas cumplen las ventanas temporales y el tiempo máximo, según el
+     * último recálculo del horario de cada una.
+     * @return true si la solución es factible, false en caso contrario.
+     */
+    public boolean isFeasible() {
+        return this.infeasibleRoutes == 0;
     }
 
     /**
@@ -361,10 +813,15 @@ public class TOPTWSolution {
             }
         }
         this.routes[routePos] = depot;
+        this.routeOf[depot] = routePos;
+        this.positionInRoute[depot] = 0;
+        this.routeSize[routePos] = 0;
         this.availableVehicles--;
         this.predecessors[depot] = depot;
-        this.successors[depot] = depot;
-        this.problem.addNodeDepot();
+        this.setArc(depot, depot);
+        this.departureTime[depot] = 0.0;
+        this.updateSchedule(depot, depot);
+        // las rutas se cuentan en la solución: el problema se comparte entre hilos y no se modifica
         return depot;
     }
 
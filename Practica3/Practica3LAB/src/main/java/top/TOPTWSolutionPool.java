@@ -0,0 +1,212 @@
+package top;
+
+import java.util.Arrays;
+
+/**
+ * Clase que agrupa las soluciones de trabajo de un hilo: la solución actual (incumbent), una solución
+ * auxiliar para construir o decodificar candidatas (candidate) y la mejor solución encontrada (best).
+ * Las tres se reservan una sola vez y se reutilizan con {@link TOPTWSolution#copyFrom(TOPTWSolution)} e
+ * {@link TOPTWSolution#initSolution()}, de modo que las iteraciones no reservan memoria para soluciones.
+ * También guarda el fitness de las construcciones ya vistas por hash de arcos, en una tabla hash de
+ * direccionamiento abierto sobre arrays primitivos que se vacía sin recorrerla al empezar cada ejecución.
+ * No es segura entre hilos: cada hilo debe tener su propio conjunto.
+ */
+public class TOPTWSolutionPool {
+    private TOPTWSolution incumbent;
+    private TOPTWSolution candidate;
+    private TOPTWSolution best;
+    private double bestFitness;
+
+    // construcciones vistas: la posición i está ocupada si seenStamp[i] == seenGeneration
+    private long[] seenKeys;
+    private double[] seenFitness;
+    private int[] seenStamp;
+    private int seenGeneration;
+    private int seenCount;
+
+    /**
+     * Capacidad inicial de la tabla de construcciones vistas (potencia de dos).
+     */
+    private static final int INITIAL_SEEN_CAPACITY = 1024;
+
+    /**
+     * Constructor de la clase TOPTWSolutionPool con soluciones nuevas.
+     *
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWSolutionPool(TOPTW problem) {
+        this(new TOPTWSolution(problem));
+    }
+
+    /**
+     * Constructor de la clase TOPTWSolutionPool que usa una solución existente como solución actual.
+     *
+     * @param incumbent Solución actual.
+     */
+    public TOPTWSolutionPool(TOPTWSolution incumbent) {
+        this.incumbent = incumbent;
+        this.candidate = new TOPTWSolution(incumbent.getProblem());
+        this.best = new TOPTWSolution(incumbent.getProblem());
+        this.bestFitness = TOPTWEvaluator.NO_EVALUATED;
+        this.seenKeys = null;
+        this.seenFitness = null;
+        this.seenStamp = null;
+        this.seenGeneration = 1;
+        this.seenCount = 0;
+    }
+
+    /**
+     * Método que olvida las construcciones vistas, al empezar una nueva ejecución. No recorre la tabla:
+     * basta con cambiar de generación.
+     */
+    public void clearSeen() {
+        this.seenCount = 0;
+        this.seenGeneration++;
+        if(this.seenGeneration == Integer.MAX_VALUE && this.seenStamp != null) {
+            Arrays.fill(this.seenStamp, 0);
+            this.seenGeneration = 1;
+        }
+    }
+
+    /**
+     * Método que devuelve el fitness guardado de una construcción.
+     *
+     * @param hash Hash de arcos de la construcción.
+     * @return Fitness guardado, o TOPTWEvaluator.NO_EVALUATED si la construcción no se ha visto.
+     */
+    public double getSeenFitness(long hash) {
+        if(this.seenKeys == null) {
+            return TOPTWEvaluator.NO_EVALUATED;
+        }
+        int mask = this.seenKeys.length - 1;
+        for(int i = slot(hash, mask); this.seenStamp[i] == this.seenGeneration; i = (i + 1) & mask) {
+            if(this.seenKeys[i] == hash) {
+                return this.seenFitness[i];
+            }
+        }
+        return TOPTWEvaluator.NO_EVALUATED;
+    }
+
+    /**
+     * Método que guarda el fitness de una construcción. La tabla solo reserva memoria al crecer, cuando
+     * se llena a la mitad.
+     *
+     * @param hash Hash de arcos de la construcción.
+     * @param fitness Fitness obtenido a partir de la construcción.
+     */
+    public void putSeen(long hash, double fitness) {
+        if(this.seenKeys == null) {
+            this.seenKeys = new long[INITIAL_SEEN_CAPACITY];
+            this.seenFitness = new double[INITIAL_SEEN_CAPACITY];
+            this.seenStamp = new int[INITIAL_SEEN_CAPACITY];
+        } else if(2 * (this.seenCount + 1) > this.seenKeys.length) {
+            this.growSeen();
+        }
+        int mask = this.seenKeys.length - 1;
+        int i = slot(hash, mask);
+        while(this.seenStamp[i] == this.seenGeneration) {
+            if(this.seenKeys[i] == hash) {
+                this.seenFitness[i] = fitness;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        this.seenKeys[i] = hash;
+        this.seenFitness[i] = fitness;
+        this.seenStamp[i] = this.seenGeneration;
+        this.seenCount++;
+    }
+
+    /**
+     * Método que duplica la capacidad de la tabla de construcciones vistas y recoloca las de la generación actual.
+     */
+    private void growSeen() {
+        long[] keys = this.seenKeys;
+        double[] fitness = this.seenFitness;
+        int[] stamp = this.seenStamp;
+        int generation = this.seenGeneration;
+        this.seenKeys = new long[2 * keys.length];
+        this.seenFitness = new double[2 * keys.length];
+        this.seenStamp = new int[2 * keys.length];
+        this.seenGeneration = 1;
+        this.seenCount = 0;
+        for(int i = 0; i < keys.length; i++) {
+            if(stamp[i] == generation) {
+                this.putSeen(keys[i], fitness[i]);
+            }
+        }
+    }
+
+    private static int slot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Método que copia una solución en la mejor solución si su fitness es mayor.
+     *
+     * @param solution Solución.
+     * @param fitness Fitness de la solución.
+     * @return true si la solución mejora a la mejor guardada, false en caso contrario.
+     */
+    public boolean updateBest(TOPTWSolution solution, double fitness) {
+        if(fitness <= this.bestFitness) {
+            return false;
+        }
+        this.best.copyFrom(solution);
+        this.bestFitness = fitness;
+        return true;
+    }
+
+    /**
+     * Método que olvida la mejor solución guardada, al empezar una nueva ejecución.
+     */
+    public void clearBest() {
+        this.bestFitness = TOPTWEvaluator.NO_EVALUATED;
+    }
+
+    /**
+     * Método que indica si hay una mejor solución guardada.
+     *
+     * @return true si hay mejor solución, false en caso contrario.
+     */
+    public boolean hasBest() {
+        return this.bestFitness != TOPTWEvaluator.NO_EVALUATED;
+    }
+
+    /**
+     * Método que devuelve la solución actual.
+     *
+     * @return Solución actual.
+     */
+    public TOPTWSolution getIncumbent() {
+        return this.incumbent;
+    }
+
+    /**
+     * Método que devuelve la solución auxiliar.
+     *
+     * @return Solución auxiliar.
+     */
+    public TOPTWSolution getCandidate() {
+        return this.candidate;
+    }
+
+    /**
+     * Método que devuelve la mejor solución guardada. Se sobrescribe con cada mejora: para conservarla
+     * hay que copiarla con {@link TOPTWSolution#snapshot()}.
+     *
+     * @return Mejor solución.
+     */
+    public TOPTWSolution getBest() {
+        return this.best;
+    }
+
+    /**
+     * Método que devuelve el fitness de la mejor solución guardada.
+     *
+     * @return Mejor fitness, o TOPTWEvaluator.NO_EVALUATED si no hay ninguna.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+}
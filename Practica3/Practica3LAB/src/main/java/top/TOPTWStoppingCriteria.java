@@ -0,0 +1,223 @@
+package top;
+
+/**
+ * Clase que implementa los criterios de parada de una ejecución del algoritmo GRASP, además del número
+ * máximo de iteraciones: tiempo límite, score objetivo y número de iteraciones sin mejora, y la cancelación
+ * cooperativa desde otro hilo. También avisa del progreso a un {@link TOPTWProgressListener}.
+ * Los contadores son globales: en el GRASP paralelo todos los hilos comparten la misma instancia, de modo
+ * que el tiempo límite, el objetivo o la cancelación detienen a todos. La parada se comprueba entre
+ * iteraciones, por lo que el tiempo de respuesta excede el límite como mucho en una iteración.
+ * Una cancelación pedida con {@link #cancel()} queda pendiente hasta que se llame a {@link #reset()}: si
+ * llega antes de que empiece la ejecución, ésta termina sin hacer ninguna iteración.
+ */
+public class TOPTWStoppingCriteria {
+    private long timeLimitMillis;
+    private double targetScore;
+    private int maxNonImprovingIterations;
+    private TOPTWProgressListener listener;
+    private long progressIntervalMillis;
+
+    // cancelación pedida desde otro hilo, que no se borra al empezar una ejecución
+    private volatile boolean cancelRequested;
+
+    // estado de la ejecución en curso
+    private long startNanos;
+    private volatile boolean stopped;
+    private volatile boolean timedOut;
+    private int iterations;
+    private int lastImprovement;
+    private double bestFitness;
+    private long lastProgressNanos;
+
+    /**
+     * Constructor de la clase TOPTWStoppingCriteria. Sin ningún criterio activo, solo se detiene al
+     * cancelarla.
+     */
+    public TOPTWStoppingCriteria() {
+        this.timeLimitMillis = Long.MAX_VALUE;
+        this.targetScore = Double.POSITIVE_INFINITY;
+        this.maxNonImprovingIterations = Integer.MAX_VALUE;
+        this.listener = null;
+        this.progressIntervalMillis = 1000;
+        this.cancelRequested = false;
+        this.start();
+    }
+
+    /**
+     * Método que reinicia el estado al empezar una ejecución: el reloj y los contadores. No borra una
+     * cancelación pendiente, para no perder un {@link #cancel()} que llegue justo antes de empezar.
+     */
+    public synchronized void start() {
+        this.startNanos = System.nanoTime();
+        this.stopped = false;
+        this.timedOut = false;
+        this.iterations = 0;
+        this.lastImprovement = 0;
+        this.bestFitness = 0.0;
+        this.lastProgressNanos = this.startNanos;
+    }
+
+    /**
+     * Método que registra el fitness de una iteración. Si se alcanza el score objetivo o se supera el número
+     * de iteraciones sin mejora, la ejecución queda detenida; si ha pasado el intervalo de progreso, se avisa
+     * al listener.
+     *
+     * @param fitness Fitness de la iteración.
+     */
+    public synchronized void record(double fitness) {
+        this.iterations++;
+        if(fitness > this.bestFitness) {
+            this.bestFitness = fitness;
+            this.lastImprovement = this.iterations;
+        }
+        if(this.bestFitness >= this.targetScore || this.iterations - this.lastImprovement >= this.maxNonImprovingIterations) {
+            this.stopped = true;
+        }
+        if(this.listener != null) {
+            long now = System.nanoTime();
+            if(now - this.lastProgressNanos >= this.progressIntervalMillis * 1000000L) {
+                this.lastProgressNanos = now;
+                this.listener.onProgress(this.iterations, this.bestFitness, (now - this.startNanos) / 1000000L);
+            }
+        }
+    }
+
+    /**
+     * Método que avisa al listener del estado final de la ejecución.
+     *
+     * @param bestFitness Mejor fitness de la ejecución (incluido el path relinking).
+     */
+    public synchronized void finish(double bestFitness) {
+        this.bestFitness = Math.max(this.bestFitness, bestFitness);
+        if(this.listener != null) {
+            this.listener.onProgress(this.iterations, this.bestFitness, this.getElapsedMillis());
+        }
+    }
+
+    /**
+     * Método que indica si las iteraciones deben detenerse.
+     *
+     * @return true si se ha cancelado, se ha agotado el tiempo o se ha cumplido otro criterio de parada.
+     */
+    public boolean isStopped() {
+        return this.stopped || this.isCancelled();
+    }
+
+    /**
+     * Método que indica si se ha cancelado la ejecución o agotado el tiempo; en ese caso tampoco se
+     * aplica el path relinking.
+     *
+     * @return true si se ha cancelado o agotado el tiempo, false en caso contrario.
+     */
+    public boolean isCancelled() {
+        if(this.cancelRequested) {
+            return true;
+        }
+        if(!this.timedOut && this.timeLimitMillis != Long.MAX_VALUE && this.getElapsedMillis() >= this.timeLimitMillis) {
+            this.timedOut = true;
+        }
+        return this.timedOut;
+    }
+
+    /**
+     * Método que cancela la ejecución en curso o, si aún no ha empezado, la siguiente. Puede llamarse
+     * desde cualquier hilo; los hilos GRASP se detienen al terminar su iteración actual. La cancelación
+     * sigue pendiente hasta que se llame a {@link #reset()}.
+     */
+    public void cancel() {
+        this.cancelRequested = true;
+    }
+
+    /**
+     * Método que borra una cancelación pendiente y reinicia el estado, para volver a usar los criterios
+     * en otra ejecución después de cancelarlos.
+     */
+    public synchronized void reset() {
+        this.cancelRequested = false;
+        this.start();
+    }
+
+    /**
+     * Método que indica si hay una cancelación pendiente pedida con {@link #cancel()}.
+     *
+     * @return true si se ha pedido la cancelación y no se ha llamado después a {@link #reset()}.
+     */
+    public boolean isCancelRequested() {
+        return this.cancelRequested;
+    }
+
+    /**
+     * Método que devuelve los milisegundos transcurridos desde el inicio de la ejecución.
+     *
+     * @return Milisegundos transcurridos.
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - this.startNanos) / 1000000L;
+    }
+
+    /**
+     * Método que devuelve el tiempo límite.
+     *
+     * @return Tiempo límite en milisegundos (Long.MAX_VALUE si no hay límite).
+     */
+    public long getTimeLimitMillis() {
+        return this.timeLimitMillis;
+    }
+
+    /**
+     * Método que establece el tiempo límite de la ejecución.
+     *
+     * @param timeLimitMillis Tiempo límite en milisegundos.
+     */
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Método que devuelve el score objetivo.
+     *
+     * @return Score objetivo (infinito si no hay objetivo).
+     */
+    public double getTargetScore() {
+        return this.targetScore;
+    }
+
+    /**
+     * Método que establece el score objetivo: la ejecución se detiene al encontrar una solución que lo alcance.
+     *
+     * @param targetScore Score objetivo.
+     */
+    public void setTargetScore(double targetScore) {
+        this.targetScore = targetScore;
+    }
+
+    /**
+     * Método que devuelve el número máximo de iteraciones seguidas sin mejora.
+     *
+     * @return Número máximo de iteraciones sin mejora (Integer.MAX_VALUE si no hay límite).
+     */
+    public int getMaxNonImprovingIterations() {
+        return this.maxNonImprovingIterations;
+    }
+
+    /**
+     * Método que establece el número máximo de iteraciones seguidas, contadas entre todos los hilos, sin
+     * mejorar la mejor solución.
+     *
+     * @param maxNonImprovingIterations Número máximo de iteraciones sin mejora.
+     */
+    public void setMaxNonImprovingIterations(int maxNonImprovingIterations) {
+        this.maxNonImprovingIterations = maxNonImprovingIterations;
+    }
+
+    /**
+     * Método que establece el listener de progreso.
+     *
+     * @param listener Listener de progreso, o null para no avisar.
+     * @param progressIntervalMillis Milisegundos mínimos entre dos avisos.
+     */
+    public void setProgressListener(TOPTWProgressListener listener, long progressIntervalMillis) {
+        this.listener = listener;
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+}
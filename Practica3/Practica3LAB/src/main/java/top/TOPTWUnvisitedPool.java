@@ -0,0 +1,108 @@
+package top;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * Clase que mantiene los POIs que no visita ninguna ruta de una solución, ordenados por score de mayor
+ * a menor. Cada POI tiene un rango fijo en ese orden y el conjunto se guarda como un mapa de bits sobre los
+ * rangos, de modo que añadir o quitar un POI es O(1) y recorrer los POIs sin visitar por score descendente
+ * solo visita palabras del mapa con algún bit activo.
+ */
+public class TOPTWUnvisitedPool {
+    private int[] nodeByRank;
+    private int[] rankOf;
+    private TOPTW problem;
+    private BitSet unvisited;
+
+    /**
+     * Constructor de la clase TOPTWUnvisitedPool. Ordena los POIs del problema por score descendente.
+     *
+     * @param problem Problema TOPTW.
+     */
+    public TOPTWUnvisitedPool(TOPTW problem) {
+        int pois = problem.getPOIs();
+        this.problem = problem;
+        this.nodeByRank = IntStream.rangeClosed(1, pois).boxed()
+                .sorted((a, b) -> Double.compare(problem.getScore(b), problem.getScore(a)))
+                .mapToInt(Integer::intValue).toArray();
+        this.rankOf = new int[pois + 1];
+        for(int r = 0; r < pois; r++) {
+            this.rankOf[this.nodeByRank[r]] = r;
+        }
+        this.unvisited = new BitSet(pois);
+    }
+
+    /**
+     * Método que carga en el conjunto los POIs que no están en ninguna ruta de la solución y que alguna
+     * ruta factible puede visitar.
+     *
+     * @param solution Solución.
+     */
+    public void load(TOPTWSolution solution) {
+        this.unvisited.clear();
+        for(int r = 0; r < this.nodeByRank.length; r++) {
+            int node = this.nodeByRank[r];
+            if(solution.getRouteOf(node) == TOPTWSolution.NO_INITIALIZED && this.problem.isReachable(node)) {
+                this.unvisited.set(r);
+            }
+        }
+    }
+
+    /**
+     * Método que añade un POI al conjunto.
+     *
+     * @param node POI.
+     */
+    public void add(int node) {
+        this.unvisited.set(this.rankOf[node]);
+    }
+
+    /**
+     * Método que quita un POI del conjunto.
+     *
+     * @param node POI.
+     */
+    public void remove(int node) {
+        this.unvisited.clear(this.rankOf[node]);
+    }
+
+    /**
+     * Método que devuelve el primer rango sin visitar a partir de uno dado.
+     * Para recorrer el conjunto: {@code for(int r = pool.next(0); r >= 0; r = pool.next(r + 1))}.
+     *
+     * @param rank Rango inicial (incluido).
+     * @return Rango del siguiente POI sin visitar, o -1 si no hay más.
+     */
+    public int next(int rank) {
+        return this.unvisited.nextSetBit(rank);
+    }
+
+    /**
+     * Método que devuelve el POI de un rango.
+     *
+     * @param rank Rango en el orden por score descendente.
+     * @return POI.
+     */
+    public int getNode(int rank) {
+        return this.nodeByRank[rank];
+    }
+
+    /**
+     * Método que devuelve el número de POIs sin visitar.
+     *
+     * @return Número de POIs sin visitar.
+     */
+    public int size() {
+        return this.unvisited.cardinality();
+    }
+
+    /**
+     * Método que indica si no quedan POIs sin visitar.
+     *
+     * @return true si todos los POIs están en alguna ruta, false en caso contrario.
+     */
+    public boolean isEmpty() {
+        return this.unvisited.isEmpty();
+    }
+}
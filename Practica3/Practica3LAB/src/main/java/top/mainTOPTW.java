@@ -33,9 +33,8 @@ public class mainTOPTW {
             TOPTWGRASP grasp = new TOPTWGRASP(solution);
 
             System.out.println(" --> Instance: "+instances[i]);
-            grasp.GRASP(10000, 3);
-            grasp.GRASP(10000, 5);
-            grasp.GRASP(10000, 7);
+            // una ejecución reactiva en lugar de tres con tamaños fijos de la lista restringida (3, 5 y 7)
+            grasp.reactiveGRASP(10000);
             System.out.println("");
         }
     }
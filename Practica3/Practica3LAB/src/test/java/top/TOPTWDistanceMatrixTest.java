@@ -0,0 +1,67 @@
+package top;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas de los tipos de almacenamiento de la matriz de distancias: los que guardan doble precisión y el
+ * cálculo a partir de las coordenadas (ON_DEMAND) deben ser intercambiables para el resto del algoritmo.
+ */
+public class TOPTWDistanceMatrixTest extends TestCase {
+
+    /**
+     * Constructor de la prueba.
+     *
+     * @param testName Nombre de la prueba.
+     */
+    public TOPTWDistanceMatrixTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return Conjunto de pruebas de esta clase.
+     */
+    public static Test suite() {
+        return new TestSuite(TOPTWDistanceMatrixTest.class);
+    }
+
+    /**
+     * Las distancias entre todos los pares de nodos, incluidas las copias del depósito, deben ser idénticas
+     * bit a bit en los tipos de almacenamiento de doble precisión y en ON_DEMAND, también tras liberar la
+     * caché del hilo.
+     */
+    public void testDoublePrecisionStoragesAreIdentical() {
+        String path = "Instances/TOPTW/pr01.txt";
+        TOPTW reference = TOPTWReader.readProblem(path, TOPTWDistanceMatrix.Storage.DOUBLE);
+        TOPTW triangular = TOPTWReader.readProblem(path, TOPTWDistanceMatrix.Storage.DOUBLE_TRIANGULAR);
+        TOPTW onDemand = TOPTWReader.readProblem(path, TOPTWDistanceMatrix.Storage.ON_DEMAND);
+        int nodes = reference.getPOIs() + reference.getVehicles();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < nodes; i++) {
+                for (int j = 0; j < nodes; j++) {
+                    double distance = reference.getDistance(i, j);
+                    assertEquals(Double.doubleToLongBits(distance), Double.doubleToLongBits(triangular.getDistance(i, j)));
+                    assertEquals(Double.doubleToLongBits(distance), Double.doubleToLongBits(onDemand.getDistance(i, j)));
+                }
+            }
+            onDemand.getDistanceMatrix().releaseCache();
+        }
+    }
+
+    /**
+     * Una ejecución del GRASP con semilla y búsqueda local debe dar el mismo resultado con la matriz
+     * guardada que calculando las distancias al consultarlas, con y sin evaluación granular (r105 sin
+     * evaluación granular se comprueba en {@link TOPTWTest}).
+     */
+    public void testSeededGraspIsIndependentOfStorage() {
+        assertSameResultOnBothStorages("Instances/TOPTW/c101.txt", false);
+        assertSameResultOnBothStorages("Instances/TOPTW/c101.txt", true);
+        assertSameResultOnBothStorages("Instances/TOPTW/r105.txt", true);
+    }
+
+    private static void assertSameResultOnBothStorages(String path, boolean granular) {
+        TOPTWTest.assertSameResult(TOPTWTest.runGRASP(path, TOPTWDistanceMatrix.Storage.DOUBLE, granular),
+                TOPTWTest.runGRASP(path, TOPTWDistanceMatrix.Storage.ON_DEMAND, granular));
+    }
+}
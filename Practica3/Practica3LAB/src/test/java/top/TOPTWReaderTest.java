@@ -0,0 +1,95 @@
+package top;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas del lector de instancias: los valores deben ser idénticos a los de Double.parseDouble sobre los
+ * campos del fichero, y los errores de formato deben indicar la línea.
+ */
+public class TOPTWReaderTest extends TestCase {
+
+    /**
+     * Constructor de la prueba.
+     *
+     * @param testName Nombre de la prueba.
+     */
+    public TOPTWReaderTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return Conjunto de pruebas de esta clase.
+     */
+    public static Test suite() {
+        return new TestSuite(TOPTWReaderTest.class);
+    }
+
+    /**
+     * Una instancia de Solomon y otra de Cordeau, con coordenadas negativas y listas de dos elementos.
+     */
+    public void testValuesMatchParseDouble() throws IOException {
+        this.assertSameValues("Instances/TOPTW/c101.txt");
+        this.assertSameValues("Instances/TOPTW/pr01.txt");
+    }
+
+    /**
+     * Un número mal escrito en la cuarta línea debe producir un error con el fichero y esa línea.
+     */
+    public void testFormatErrorReportsLine() throws IOException {
+        File file = File.createTempFile("toptw", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("4 1 1 1\n0 200\n0 1 2 3 4 0 0 0 9\n1 1 2.5q 3 4 5 1 1 7 8\n");
+        }
+        try {
+            TOPTWReader.readProblem(file.getPath());
+            fail("Se esperaba un error de formato");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(file.getPath() + ":4:"));
+        }
+    }
+
+    /**
+     * Un fichero que no existe debe producir una UncheckedIOException en lugar de terminar el programa.
+     */
+    public void testMissingFileThrowsUncheckedIOException() {
+        try {
+            TOPTWReader.readProblem("Instances/TOPTW/no-existe.txt");
+            fail("Se esperaba un error de lectura");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getMessage().contains("no-existe.txt"));
+        }
+    }
+
+    /**
+     * Método que compara el problema leído con los campos del fichero separados con String.split.
+     */
+    private void assertSameValues(String path) throws IOException {
+        TOPTW problem = TOPTWReader.readProblem(path);
+        List<String> lines = Files.readAllLines(Paths.get(path));
+        String[] header = lines.get(0).trim().split("\\s+");
+        assertEquals(Integer.parseInt(header[1]), problem.getVehicles());
+        assertEquals(Integer.parseInt(header[2]), problem.getPOIs());
+        for (int i = 0; i <= problem.getPOIs(); i++) {
+            String[] parts = lines.get(i + 2).trim().split("\\s+");
+            assertEquals(Double.parseDouble(parts[1]), problem.getX(i));
+            assertEquals(Double.parseDouble(parts[2]), problem.getY(i));
+            assertEquals(Double.parseDouble(parts[3]), problem.getServiceTime(i));
+            assertEquals(Double.parseDouble(parts[4]), problem.getScore(i));
+            // la ventana temporal son los dos últimos campos, tras la lista de longitud variable
+            assertEquals(Double.parseDouble(parts[parts.length - 2]), problem.getReadyTime(i));
+            assertEquals(Double.parseDouble(parts[parts.length - 1]), problem.getDueTime(i));
+        }
+        assertEquals(problem.getDueTime(0), problem.getMaxTimePerRoute());
+    }
+}
@@ -0,0 +1,107 @@
+package top;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas de las cotas de la búsqueda entre rutas: ningún intercambio de cadenas factible puede terminar
+ * antes que la ruta sin su cadena, que su menor tiempo sin una cadena o que una ruta con solo la cadena
+ * recibida. Si alguna cota fallase, la poda exacta cambiaría el resultado de la búsqueda.
+ */
+public class TOPTWRouteSegmentsTest extends TestCase {
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Constructor de la prueba.
+     *
+     * @param testName Nombre de la prueba.
+     */
+    public TOPTWRouteSegmentsTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return Conjunto de pruebas de esta clase.
+     */
+    public static Test suite() {
+        return new TestSuite(TOPTWRouteSegmentsTest.class);
+    }
+
+    /**
+     * Recorre todos los intercambios de cadenas de hasta dos clientes entre las rutas de una solución
+     * mejorada por la búsqueda local y comprueba las cotas con la ruta resultante evaluada de principio a fin.
+     */
+    public void testEndTimeBoundsHoldForEveryExchange() {
+        TOPTWSolution solution = TOPTWTest.runGRASP("Instances/TOPTW/c101.txt", TOPTWDistanceMatrix.Storage.DOUBLE, false).getBestSolution();
+        TOPTW problem = solution.getProblem();
+        int routes = solution.getCreatedRoutes();
+        assertTrue(routes >= 2);
+        TOPTWRouteSegments[] segments = new TOPTWRouteSegments[routes];
+        for(int k = 0; k < routes; k++) {
+            segments[k] = new TOPTWRouteSegments(problem, 2);
+            segments[k].load(solution, k);
+        }
+        TOPTWSegment scratch = new TOPTWSegment();
+        int feasible = 0;
+        for(int a = 0; a < routes; a++) {
+            for(int b = 0; b < routes; b++) {
+                if(a != b) {
+                    feasible += this.checkExchanges(problem, segments[a], segments[b], scratch);
+                }
+            }
+        }
+        assertTrue(feasible > 0);
+    }
+
+    /**
+     * Método que comprueba las cotas de la ruta target para todas las cadenas que puede recibir de source.
+     *
+     * @return Número de rutas resultantes factibles.
+     */
+    private int checkExchanges(TOPTW problem, TOPTWRouteSegments target, TOPTWRouteSegments source, TOPTWSegment scratch) {
+        int feasible = 0;
+        int[] nodes = new int[target.getSize() + 2];
+        for(int i = 1; i <= target.getSize() + 1; i++) {
+            for(int lengthI = 0; lengthI <= 2 && i + lengthI - 1 <= target.getSize(); lengthI++) {
+                double removalEndTime = target.getRemovalEndTime(i, lengthI, scratch);
+                for(int j = 1; j <= source.getSize() + 1; j++) {
+                    for(int lengthJ = 0; lengthJ <= 2 && j + lengthJ - 1 <= source.getSize(); lengthJ++) {
+                        int n = 0;
+                        for(int p = 1; p < i; p++) { nodes[n++] = target.getNode(p); }
+                        for(int p = j; p < j + lengthJ; p++) { nodes[n++] = source.getNode(p); }
+                        for(int p = i + lengthI; p <= target.getSize(); p++) { nodes[n++] = target.getNode(p); }
+                        double endTime = evaluate(problem, target, nodes, 0, n);
+                        if(Double.isInfinite(endTime)) {
+                            continue;
+                        }
+                        feasible++;
+                        assertTrue(endTime >= removalEndTime - TOLERANCE);
+                        assertTrue(endTime >= target.getMinRemovalEndTime() - TOLERANCE);
+                        if(lengthJ > 0) {
+                            assertTrue(endTime >= evaluate(problem, target, nodes, i - 1, i - 1 + lengthJ) - TOLERANCE);
+                        }
+                    }
+                }
+            }
+        }
+        return feasible;
+    }
+
+    /**
+     * Método que evalúa nodo a nodo una ruta que sale del depósito de target y visita nodes[from..to).
+     *
+     * @return Tiempo de finalización de la ruta, o infinito si no es factible.
+     */
+    private static double evaluate(TOPTW problem, TOPTWRouteSegments target, int[] nodes, int from, int to) {
+        TOPTWSegment route = new TOPTWSegment();
+        TOPTWSegment node = new TOPTWSegment();
+        route.copyFrom(target.getNodeSegment(0));
+        for(int p = from; p < to; p++) {
+            node.setCustomer(problem, nodes[p]);
+            route.concat(problem, route, node);
+        }
+        route.concat(problem, route, target.getNodeSegment(target.getSize() + 1));
+        return route.isFeasible() ? route.getEndTime() : Double.POSITIVE_INFINITY;
+    }
+}
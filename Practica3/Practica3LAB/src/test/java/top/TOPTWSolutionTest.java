@@ -0,0 +1,153 @@
+package top;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas de los valores que TOPTWSolution mantiene de forma incremental (score, factibilidad, tiempos de
+ * finalización y hash de arcos), comparándolos con los que se obtienen recorriendo la solución completa.
+ */
+public class TOPTWSolutionTest extends TestCase {
+    private static final double DELTA = 1e-6;
+
+    private TOPTW problem;
+
+    /**
+     * Constructor de la prueba.
+     *
+     * @param testName Nombre de la prueba.
+     */
+    public TOPTWSolutionTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return Conjunto de pruebas de esta clase.
+     */
+    public static Test suite() {
+        return new TestSuite(TOPTWSolutionTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        this.problem = TOPTWReader.readProblem("Instances/TOPTW/c101.txt");
+    }
+
+    /**
+     * Secuencias aleatorias de inserciones y eliminaciones: tras cada movimiento el score, la factibilidad
+     * y los tiempos guardados deben coincidir con los de TOPTWEvaluator y con una simulación de cada ruta.
+     */
+    public void testIncrementalValuesMatchEvaluator() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Random random = new Random(seed);
+            TOPTWSolution solution = new TOPTWSolution(this.problem);
+            solution.initSolution();
+            for (int step = 0; step < 500; step++) {
+                this.randomMove(solution, random);
+                this.assertConsistent(solution);
+            }
+        }
+    }
+
+    /**
+     * El hash de arcos mantenido tras los movimientos debe coincidir con el de una solución construida desde
+     * cero con las mismas rutas, y volver a su valor al deshacer un movimiento.
+     */
+    public void testArcHashMatchesRecomputedHash() {
+        Random random = new Random(42);
+        TOPTWSolution solution = new TOPTWSolution(this.problem);
+        solution.initSolution();
+        for (int step = 0; step < 1000; step++) {
+            this.randomMove(solution, random);
+            if (step % 50 == 0) {
+                TOPTWSolution rebuilt = this.rebuild(solution);
+                assertEquals(rebuilt.getArcHash(), solution.getArcHash());
+                assertEquals(rebuilt, solution);
+            }
+        }
+        for (int customer = 1; customer <= this.problem.getPOIs(); customer++) {
+            if (solution.getRouteOf(customer) != TOPTWSolution.NO_INITIALIZED) {
+                long before = solution.getArcHash();
+                int predecessor = solution.getPredecessor(customer);
+                solution.remove(customer);
+                assertFalse(before == solution.getArcHash());
+                solution.insertAfter(customer, predecessor);
+                assertEquals(before, solution.getArcHash());
+            }
+        }
+    }
+
+    /**
+     * Método que aplica un movimiento aleatorio: crear una ruta, insertar un cliente no visitado tras un
+     * nodo cualquiera de una ruta o eliminar un cliente visitado. Las inserciones no comprueban la
+     * factibilidad, de modo que también se prueban soluciones infactibles.
+     */
+    private void randomMove(TOPTWSolution solution, Random random) {
+        int customer = 1 + random.nextInt(this.problem.getPOIs());
+        if (solution.getRouteOf(customer) != TOPTWSolution.NO_INITIALIZED) {
+            solution.remove(customer);
+        } else if (solution.getCreatedRoutes() < this.problem.getVehicles() && random.nextInt(10) == 0) {
+            solution.addRoute();
+        } else {
+            int depot = solution.getIndexRoute(random.nextInt(solution.getCreatedRoutes()));
+            int predecessor = depot;
+            for (int steps = random.nextInt(solution.getRouteSize(solution.getRouteOf(depot)) + 1); steps > 0; steps--) {
+                predecessor = solution.getSuccessor(predecessor);
+            }
+            solution.insertAfter(customer, predecessor);
+        }
+    }
+
+    /**
+     * Método que comprueba los valores incrementales de una solución con una evaluación completa.
+     */
+    private void assertConsistent(TOPTWSolution solution) {
+        double score = solution.evaluateFitness();
+        double totalTime = solution.getTotalTime();
+        boolean feasible = solution.isFeasible();
+        TOPTWEvaluator evaluator = new TOPTWEvaluator();
+        assertEquals(evaluator.evaluate(solution.snapshot()), score, DELTA);
+        assertEquals(evaluator.getTotalTime(), totalTime, DELTA);
+        assertEquals(evaluator.isFeasible(), feasible);
+        for (int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            double time = 0.0;
+            int node = depot;
+            int size = 0;
+            do {
+                int successor = solution.getSuccessor(node);
+                time = Math.max(time + this.problem.getDistance(node, successor), this.problem.getReadyTime(successor))
+                        + this.problem.getServiceTime(successor);
+                node = successor;
+                size++;
+            } while (node != depot);
+            assertEquals(time, solution.getRouteEndTime(depot), DELTA);
+            assertEquals(size - 1, solution.getRouteSize(k));
+        }
+    }
+
+    /**
+     * Método que construye desde cero una solución con las mismas rutas que otra.
+     */
+    private TOPTWSolution rebuild(TOPTWSolution solution) {
+        TOPTWSolution rebuilt = new TOPTWSolution(this.problem);
+        rebuilt.initSolution();
+        while (rebuilt.getCreatedRoutes() < solution.getCreatedRoutes()) {
+            rebuilt.addRoute();
+        }
+        int[] nodes = new int[this.problem.getPOIs()];
+        for (int k = 0; k < solution.getCreatedRoutes(); k++) {
+            assertEquals(solution.getIndexRoute(k), rebuilt.getIndexRoute(k));
+            int depot = solution.getIndexRoute(k);
+            int size = 0;
+            for (int node = solution.getSuccessor(depot); node != depot; node = solution.getSuccessor(node)) {
+                nodes[size++] = node;
+            }
+            rebuilt.setRoute(k, nodes, size);
+        }
+        return rebuilt;
+    }
+}
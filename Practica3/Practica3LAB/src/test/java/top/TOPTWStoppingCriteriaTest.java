@@ -0,0 +1,82 @@
+package top;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas de los criterios de parada: una cancelación pedida antes de empezar una ejecución no se pierde
+ * al ponerla en marcha, y solo se borra con reset().
+ */
+public class TOPTWStoppingCriteriaTest extends TestCase {
+
+    /**
+     * Constructor de la prueba.
+     *
+     * @param testName Nombre de la prueba.
+     */
+    public TOPTWStoppingCriteriaTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return Conjunto de pruebas de esta clase.
+     */
+    public static Test suite() {
+        return new TestSuite(TOPTWStoppingCriteriaTest.class);
+    }
+
+    /**
+     * Una cancelación anterior a la ejecución la detiene sin iteraciones en las tres variantes del GRASP.
+     */
+    public void testCancelBeforeRunIsNotLost() {
+        TOPTWStoppingCriteria criteria = new TOPTWStoppingCriteria();
+        TOPTWGRASP grasp = createGRASP(criteria);
+        criteria.cancel();
+        assertEquals(0, grasp.GRASP(20, 3).getIterations());
+        assertTrue(criteria.isCancelled());
+        assertEquals(0, grasp.reactiveGRASP(20).getIterations());
+        assertEquals(0, grasp.parallelGRASP(20, 3, 2).getIterations());
+        assertTrue(criteria.isCancelRequested());
+    }
+
+    /**
+     * Después de reset() la cancelación deja de estar pendiente y la ejecución hace todas sus iteraciones.
+     */
+    public void testResetClearsPendingCancel() {
+        TOPTWStoppingCriteria criteria = new TOPTWStoppingCriteria();
+        TOPTWGRASP grasp = createGRASP(criteria);
+        criteria.cancel();
+        criteria.reset();
+        assertFalse(criteria.isCancelRequested());
+        assertEquals(20, grasp.GRASP(20, 3).getIterations());
+        assertFalse(criteria.isCancelled());
+    }
+
+    /**
+     * El tiempo agotado en una ejecución no se arrastra a la siguiente, que vuelve a contar desde cero.
+     */
+    public void testTimeLimitIsPerRun() {
+        TOPTWStoppingCriteria criteria = new TOPTWStoppingCriteria();
+        criteria.setTimeLimitMillis(0);
+        assertTrue(criteria.isCancelled());
+        criteria.setTimeLimitMillis(Long.MAX_VALUE);
+        criteria.start();
+        assertFalse(criteria.isCancelled());
+        assertFalse(criteria.isCancelRequested());
+    }
+
+    /**
+     * Método que crea un GRASP silencioso con semilla fija y los criterios de parada dados.
+     *
+     * @param criteria Criterios de parada.
+     * @return GRASP sobre la instancia c101.
+     */
+    private static TOPTWGRASP createGRASP(TOPTWStoppingCriteria criteria) {
+        TOPTW problem = TOPTWReader.readProblem("Instances/TOPTW/c101.txt");
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem), 7L);
+        grasp.setReporter(TOPTWReporter.silent());
+        grasp.setStoppingCriteria(criteria);
+        return grasp;
+    }
+}
@@ -0,0 +1,78 @@
+package top;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas de las tablas precalculadas del problema: los arcos compatibles solo pueden descartar arcos
+ * infactibles, de modo que el GRASP debe dar el mismo resultado con y sin la tabla (modo ON_DEMAND).
+ */
+public class TOPTWTest extends TestCase {
+
+    /**
+     * Constructor de la prueba.
+     *
+     * @param testName Nombre de la prueba.
+     */
+    public TOPTWTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * @return Conjunto de pruebas de esta clase.
+     */
+    public static Test suite() {
+        return new TestSuite(TOPTWTest.class);
+    }
+
+    /**
+     * El arco entre las dos copias del depósito de una ruta vacía debe ser compatible, también entre las
+     * copias de rutas distintas, que se traducen al nodo 0.
+     */
+    public void testDepotSelfArcIsCompatible() {
+        TOPTW problem = TOPTWReader.readProblem("Instances/TOPTW/r105.txt");
+        int depot = problem.getPOIs() + 1;
+        assertTrue(problem.isCompatible(0, 0));
+        assertTrue(problem.isCompatible(depot, depot));
+    }
+
+    /**
+     * Con búsqueda local, incluidos los movimientos entre rutas que vacían una ruta, una ejecución con
+     * semilla debe dar las mismas iteraciones y la misma mejor solución con la tabla de arcos (DOUBLE) que
+     * sin ella (ON_DEMAND).
+     */
+    public void testSeededGraspMatchesWithoutCompatibilityTable() {
+        TOPTWGRASPResult stored = runGRASP("Instances/TOPTW/r105.txt", TOPTWDistanceMatrix.Storage.DOUBLE, false);
+        TOPTWGRASPResult onDemand = runGRASP("Instances/TOPTW/r105.txt", TOPTWDistanceMatrix.Storage.ON_DEMAND, false);
+        assertSameResult(stored, onDemand);
+    }
+
+    /**
+     * Método que ejecuta un GRASP con semilla fija y búsqueda local sobre una instancia.
+     *
+     * @param path Ruta de la instancia.
+     * @param storage Tipo de almacenamiento de la matriz de distancias.
+     * @param granular true para la evaluación granular de la construcción.
+     * @return Resultado de la ejecución.
+     */
+    static TOPTWGRASPResult runGRASP(String path, TOPTWDistanceMatrix.Storage storage, boolean granular) {
+        TOPTW problem = TOPTWReader.readProblem(path, storage);
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem), 7L);
+        grasp.setReporter(TOPTWReporter.silent());
+        grasp.setGranularEvaluation(granular);
+        return grasp.GRASP(40, 3);
+    }
+
+    /**
+     * Método que comprueba que dos ejecuciones han obtenido el mismo fitness medio y la misma mejor solución.
+     *
+     * @param expected Resultado de referencia.
+     * @param actual Resultado a comprobar.
+     */
+    static void assertSameResult(TOPTWGRASPResult expected, TOPTWGRASPResult actual) {
+        assertEquals(expected.getAverageFitness(), actual.getAverageFitness(), 0.0);
+        assertEquals(expected.getBestFitness(), actual.getBestFitness(), 0.0);
+        assertEquals(expected.getBestSolution().getArcHash(), actual.getBestSolution().getArcHash());
+    }
+}